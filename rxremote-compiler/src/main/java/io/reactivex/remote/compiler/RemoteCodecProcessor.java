@@ -0,0 +1,211 @@
+package io.reactivex.remote.compiler;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Generates the <code>RemoteCodec</code>s of the types sent by the
+ * <code>RemoteObservable</code>s returned from <a href=\"https://bit.ly/Remoter\">@Remoter</a> interfaces.
+ * <p>
+ * For an interface <code>ISampleService</code> it generates <code>ISampleService_RemoteCodecs</code>, whose
+ * <code>register()</code> registers a codec for every <a href=\"https://github.com/johncarl81/parceler\">@Parcel</a>
+ * class and @Remoter interface found as <code>RemoteObservable&lt;T&gt;</code> or <code>RemoteObservable&lt;List&lt;T&gt;&gt;</code>.
+ * The codecs call the generated parceler, stub and proxy classes directly instead of through reflection
+ */
+public class RemoteCodecProcessor extends AbstractProcessor {
+
+    private static final String REMOTER_ANNOTATION = "remoter.annotations.Remoter";
+    private static final String PARCEL_ANNOTATION = "org.parceler.Parcel";
+    private static final String REMOTE_OBSERVABLE = "io.reactivex.remote.RemoteObservable";
+    private static final String LIST = "java.util.List";
+    private static final String SUFFIX = "_RemoteCodecs";
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton(REMOTER_ANNOTATION);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        TypeElement remoterAnnotation = processingEnv.getElementUtils().getTypeElement(REMOTER_ANNOTATION);
+        if (remoterAnnotation == null) {
+            return false;
+        }
+        for (Element element : roundEnv.getElementsAnnotatedWith(remoterAnnotation)) {
+            if (element.getKind() == ElementKind.INTERFACE) {
+                TypeElement remoterInterface = (TypeElement) element;
+                Map<String, TypeElement> codecTypes = findCodecTypes(remoterInterface);
+                if (!codecTypes.isEmpty()) {
+                    writeCodecs(remoterInterface, codecTypes);
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds the @Parcel classes and @Remoter interfaces sent by the observables of the interface
+     */
+    private Map<String, TypeElement> findCodecTypes(TypeElement remoterInterface) {
+        Map<String, TypeElement> codecTypes = new LinkedHashMap<>();
+        for (Element member : processingEnv.getElementUtils().getAllMembers(remoterInterface)) {
+            if (member.getKind() != ElementKind.METHOD) {
+                continue;
+            }
+            TypeMirror dataType = getTypeArgument(((ExecutableElement) member).getReturnType(), REMOTE_OBSERVABLE);
+            TypeMirror itemType = getTypeArgument(dataType, LIST);
+            if (itemType != null) {
+                dataType = itemType;
+            }
+            if (dataType != null && dataType.getKind() == TypeKind.DECLARED) {
+                TypeElement dataElement = (TypeElement) ((DeclaredType) dataType).asElement();
+                if (hasAnnotation(dataElement, PARCEL_ANNOTATION) || (dataElement.getKind() == ElementKind.INTERFACE && hasAnnotation(dataElement, REMOTER_ANNOTATION))) {
+                    codecTypes.put(dataElement.getQualifiedName().toString(), dataElement);
+                }
+            }
+        }
+        return codecTypes;
+    }
+
+    /**
+     * Returns the type argument if the type is of the given generic class
+     */
+    private TypeMirror getTypeArgument(TypeMirror type, String className) {
+        if (type != null && type.getKind() == TypeKind.DECLARED) {
+            DeclaredType declaredType = (DeclaredType) type;
+            List<? extends TypeMirror> typeArguments = declaredType.getTypeArguments();
+            if (((TypeElement) declaredType.asElement()).getQualifiedName().contentEquals(className) && typeArguments.size() == 1) {
+                return typeArguments.get(0);
+            }
+        }
+        return null;
+    }
+
+    private boolean hasAnnotation(Element element, String annotationName) {
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            if (((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotationName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void writeCodecs(TypeElement remoterInterface, Map<String, TypeElement> codecTypes) {
+        String packageName = getPackageName(remoterInterface);
+        String className = getBinarySimpleName(remoterInterface) + SUFFIX;
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("import io.reactivex.remote.RemoteCodec;\n")
+                .append("import io.reactivex.remote.RemoteCodecs;\n\n")
+                .append("/**\n")
+                .append(" * Registers the codecs of the types sent by the observables of {@link ").append(remoterInterface.getQualifiedName()).append("}\n")
+                .append(" * <p>\n")
+                .append(" * Autogenerated by rxremote-compiler\n")
+                .append(" */\n")
+                .append("public final class ").append(className).append(" {\n\n")
+                .append("    private static boolean registered;\n\n")
+                .append("    private ").append(className).append("() {\n")
+                .append("    }\n\n")
+                .append("    /**\n")
+                .append("     * Registers the codecs. Call once at start up, at both the service and the client side\n")
+                .append("     */\n")
+                .append("    public static synchronized void register() {\n")
+                .append("        if (registered) {\n")
+                .append("            return;\n")
+                .append("        }\n")
+                .append("        registered = true;\n");
+        for (TypeElement codecType : codecTypes.values()) {
+            if (hasAnnotation(codecType, PARCEL_ANNOTATION)) {
+                appendParcelerCodec(source, codecType);
+            } else {
+                appendRemoterCodec(source, codecType);
+            }
+        }
+        source.append("    }\n")
+                .append("}\n");
+
+        try {
+            JavaFileObject sourceFile = processingEnv.getFiler().createSourceFile(
+                    packageName.isEmpty() ? className : packageName + "." + className, remoterInterface);
+            try (Writer writer = sourceFile.openWriter()) {
+                writer.write(source.toString());
+            }
+        } catch (IOException ex) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Unable to write " + className + ": " + ex.getMessage(), remoterInterface);
+        }
+    }
+
+    private void appendParcelerCodec(StringBuilder source, TypeElement parcelType) {
+        String dataClass = parcelType.getQualifiedName().toString();
+        String wrapperClass = getGeneratedName(parcelType, "$$Parcelable");
+        source.append("        RemoteCodecs.registerParceler(").append(dataClass).append(".class, ").append(wrapperClass).append(".class, new RemoteCodec<").append(dataClass).append(">() {\n")
+                .append("            @Override\n")
+                .append("            public Object wrap(").append(dataClass).append(" data) {\n")
+                .append("                return new ").append(wrapperClass).append("(data);\n")
+                .append("            }\n\n")
+                .append("            @Override\n")
+                .append("            public ").append(dataClass).append(" unwrap(Object wrapped) {\n")
+                .append("                return ((").append(wrapperClass).append(") wrapped).getParcel();\n")
+                .append("            }\n")
+                .append("        });\n");
+    }
+
+    private void appendRemoterCodec(StringBuilder source, TypeElement remoterType) {
+        String dataClass = remoterType.getQualifiedName().toString();
+        source.append("        RemoteCodecs.registerRemoter(").append(dataClass).append(".class, new RemoteCodec<").append(dataClass).append(">() {\n")
+                .append("            @Override\n")
+                .append("            public Object wrap(").append(dataClass).append(" data) {\n")
+                .append("                return new ").append(getGeneratedName(remoterType, "_Stub")).append("(data);\n")
+                .append("            }\n\n")
+                .append("            @Override\n")
+                .append("            public ").append(dataClass).append(" unwrap(Object wrapped) {\n")
+                .append("                return new ").append(getGeneratedName(remoterType, "_Proxy")).append("((android.os.IBinder) wrapped);\n")
+                .append("            }\n")
+                .append("        });\n");
+    }
+
+    /**
+     * Returns the name of the class generated for the type, the same one looked up at runtime by its binary name
+     */
+    private String getGeneratedName(TypeElement type, String suffix) {
+        String packageName = getPackageName(type);
+        String generatedName = getBinarySimpleName(type) + suffix;
+        return packageName.isEmpty() ? generatedName : packageName + "." + generatedName;
+    }
+
+    private String getPackageName(TypeElement type) {
+        return processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+    }
+
+    private String getBinarySimpleName(TypeElement type) {
+        String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+        String packageName = getPackageName(type);
+        return packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1);
+    }
+}
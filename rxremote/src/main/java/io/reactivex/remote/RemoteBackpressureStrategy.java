@@ -0,0 +1,24 @@
+package io.reactivex.remote;
+
+/**
+ * How a {@link RemoteEventController} handles events when the client has not requested any more.
+ *
+ * @see RemoteEventController#setBackpressureStrategy(RemoteBackpressureStrategy)
+ */
+public enum RemoteBackpressureStrategy {
+
+    /**
+     * Keep the events until the client requests them
+     */
+    BUFFER,
+
+    /**
+     * Drop the events that the client has not requested
+     */
+    DROP,
+
+    /**
+     * Keep only the latest event until the client requests it
+     */
+    LATEST
+}
@@ -0,0 +1,45 @@
+package io.reactivex.remote;
+
+/**
+ * How far behind a client of {@link RemoteObservables} is
+ *
+ * @see RemoteObservables#getClientLag()
+ */
+public final class RemoteClientLag {
+
+    private final int pid;
+    private final int queuedEvents;
+    private final long lagMillis;
+
+    RemoteClientLag(int pid, int queuedEvents, long lagMillis) {
+        this.pid = pid;
+        this.queuedEvents = queuedEvents;
+        this.lagMillis = lagMillis;
+    }
+
+    /**
+     * Returns the process id of the client
+     */
+    public int getPid() {
+        return pid;
+    }
+
+    /**
+     * Returns the number of events waiting to be delivered to the client
+     */
+    public int getQueuedEvents() {
+        return queuedEvents;
+    }
+
+    /**
+     * Returns for how long, in milliseconds, events have been waiting to be delivered to the client
+     */
+    public long getLagMillis() {
+        return lagMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "RemoteClientLag{pid=" + pid + ", queuedEvents=" + queuedEvents + ", lagMillis=" + lagMillis + "}";
+    }
+}
@@ -0,0 +1,22 @@
+package io.reactivex.remote;
+
+/**
+ * Converts a type that is not {@link android.os.Parcelable} to and from what is sent across,
+ * without looking up its generated classes through reflection.
+ * <p>
+ * Codecs are generated by the rxremote-compiler annotation processor, and registered using {@link RemoteCodecs}
+ *
+ * @param <T> The type of data
+ */
+public interface RemoteCodec<T> {
+
+    /**
+     * Wraps the data in the generated {@link android.os.Parcelable} or stub that is sent across
+     */
+    Object wrap(T data);
+
+    /**
+     * Returns the data from the generated {@link android.os.Parcelable} or binder that is received
+     */
+    T unwrap(Object wrapped);
+}
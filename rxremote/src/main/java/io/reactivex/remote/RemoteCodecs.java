@@ -0,0 +1,40 @@
+package io.reactivex.remote;
+
+import android.os.Parcelable;
+
+import io.reactivex.remote.internal.RemoteDataCodec;
+
+/**
+ * Registers the {@link RemoteCodec}s used to send the data of {@link RemoteObservable}s.
+ * <p>
+ * The rxremote-compiler annotation processor generates a <code>&lt;Interface&gt;_RemoteCodecs</code> class for every
+ * <a href=\"https://bit.ly/Remoter\">@Remoter</a> interface returning {@link RemoteObservable}s.
+ * Call its <code>register()</code> once at start up, at both the service and the client side.
+ * Types without a registered codec are still sent, looking up their generated classes through reflection
+ */
+public final class RemoteCodecs {
+
+    private RemoteCodecs() {
+    }
+
+    /**
+     * Registers the codec of a class annotated with <a href=\"https://github.com/johncarl81/parceler\">@Parcel</a>
+     *
+     * @param dataClass    The @Parcel class
+     * @param wrapperClass The {@link Parcelable} generated for it
+     * @param codec        Wraps the data in, and unwraps it from the generated {@link Parcelable}
+     */
+    public static <T> void registerParceler(Class<T> dataClass, Class<? extends Parcelable> wrapperClass, RemoteCodec<T> codec) {
+        RemoteDataCodec.registerParceler(dataClass, wrapperClass, codec);
+    }
+
+    /**
+     * Registers the codec of a <a href=\"https://bit.ly/Remoter\">@Remoter</a> interface
+     *
+     * @param remoterInterface The @Remoter interface
+     * @param codec            Wraps the data in the generated stub, and unwraps the binder in the generated proxy
+     */
+    public static <T> void registerRemoter(Class<T> remoterInterface, RemoteCodec<T> codec) {
+        RemoteDataCodec.registerRemoter(remoterInterface, codec);
+    }
+}
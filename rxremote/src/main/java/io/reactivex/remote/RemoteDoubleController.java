@@ -0,0 +1,25 @@
+package io.reactivex.remote;
+
+/**
+ * A {@link RemoteEventController} for a stream of {@code double} values, sent without boxing.
+ * <p>
+ * The values from {@link #sendDouble(double)} are packed in a {@code double} array, and sent to the client as per
+ * {@link #setBatching(int, long)}. Without batching, the values sent in a row are packed up to 64 at a time,
+ * and sent right away.
+ * The client gets them without boxing using {@link RemoteObservable#setDoubleListener(RemoteDoubleListener)},
+ * or boxed from {@link RemoteObservable#getObservable()}.
+ * <p>
+ * The packed values go through {@link #setAsyncDispatch(int, rx.BackpressureOverflow.Strategy)} as a single event.
+ * They are sent one at a time to the clients whose demand they have to follow, as with
+ * {@link #setBackpressureStrategy(RemoteBackpressureStrategy)} or conflation, or that read them from shared memory.
+ * The client should be using a version of RxRemote that supports it.
+ */
+public class RemoteDoubleController extends RemoteEventController<Double> {
+
+    /**
+     * Sends the value to the client observable
+     */
+    public void sendDouble(double data) {
+        sendPrimitive(data);
+    }
+}
@@ -0,0 +1,14 @@
+package io.reactivex.remote;
+
+/**
+ * Listener on the client side to get the values sent by a {@link RemoteDoubleController} without boxing
+ *
+ * @see RemoteObservable#setDoubleListener(RemoteDoubleListener)
+ */
+public interface RemoteDoubleListener {
+
+    /**
+     * Called when a value is received
+     */
+    void onData(double data);
+}
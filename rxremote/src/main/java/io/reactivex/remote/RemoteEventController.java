@@ -1,22 +1,54 @@
 package io.reactivex.remote;
 
+import android.os.Binder;
+import android.os.Build;
 import android.os.Bundle;
 import android.os.IBinder;
 import android.os.Parcelable;
+import android.os.SystemClock;
+import android.os.TransactionTooLargeException;
+import android.support.annotation.RequiresApi;
 import android.util.Log;
 
-import java.lang.reflect.Constructor;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import io.reactivex.remote.internal.LocalEventListener;
+import io.reactivex.remote.internal.RemoteDataCodec;
 import io.reactivex.remote.internal.RemoteDataType;
+import io.reactivex.remote.internal.RemoteEventBatch;
+import io.reactivex.remote.internal.RemoteEventChunk;
+import io.reactivex.remote.internal.RemoteEventData;
 import io.reactivex.remote.internal.RemoteEventListener;
 import io.reactivex.remote.internal.RemoteEventListener_Proxy;
 import io.reactivex.remote.internal.RemoteEventManager;
+import io.reactivex.remote.internal.RemoteEventPayload;
+import io.reactivex.remote.internal.RemoteEventPipeline;
+import io.reactivex.remote.internal.RemotePrimitiveBatch;
+import io.reactivex.remote.internal.RemoteReplayBuffer;
+import io.reactivex.remote.internal.RemoteRingBuffer;
+import io.reactivex.remote.internal.RemoteRingSetup;
+import io.reactivex.remote.internal.RemoteSubject;
+import io.reactivex.remote.internal.RemoteSubscriptionSpec;
+import rx.BackpressureOverflow;
 import rx.Observable;
+import rx.Scheduler;
 import rx.Subscription;
+import rx.exceptions.MissingBackpressureException;
 import rx.functions.Action0;
 import rx.functions.Action1;
+import rx.schedulers.Schedulers;
 
 /**
  * Use this class to send the data at the server side that needs to
@@ -26,6 +58,9 @@ import rx.functions.Action1;
  * <p>
  * Use {@link #sendCompleted()} to inform the client {@link rx.Observable} that
  * the data stream is complete
+ * <p>
+ * Any number of clients can subscribe to the same controller. The events are delivered to all of them,
+ * and the source {@link Observable} is subscribed to only once, while at least one client is subscribed
  *
  * @param <T> Supported types are {@link String}, {@link Byte}, {@link Short}, {@link Integer}, {@link Long},
  *            {@link Float}, {@link Double}, {@link Boolean}, {@link Parcelable},
@@ -35,18 +70,46 @@ import rx.functions.Action1;
 public class RemoteEventController<T> {
 
     private static final String TAG = "RemoteEventController";
+    //the values of the primitive controllers sent in a row are packed up to this many when batching is not enabled
+    private static final int DEFAULT_PRIMITIVE_BATCH_SIZE = 64;
+    private static ExecutorService defaultDispatcher;
     private boolean DEBUG = false;
     private boolean completed;
     private T lastEvent;
+    private RemoteEventPayload lastPayload;
     private Exception lastException;
     private RemoteDataType dataType = RemoteDataType.UnKnown;
     private final Object LOCK = new Object();
     private RemoteEventHandler remoteEventHandler = new RemoteEventHandler();
-    private Class lastDataTypeClass;
-    private RemoteDataType lastDataType;
     private Observable<T> sourceObservable;
     private Subscription sourceSubscription;
     private boolean ignoreIfDuplicateOfLast = false;
+    private boolean compactEncoding = false;
+    private int maxBatchSize;
+    private long maxBatchDelayMillis;
+    private Scheduler.Worker batchWorker;
+    private RemoteBackpressureStrategy backpressureStrategy;
+    private int backpressureBufferSize;
+    private volatile ConcurrentLinkedQueue<Object> dispatchQueue;
+    private final AtomicInteger dispatchQueueSize = new AtomicInteger();
+    private final AtomicInteger dispatchWip = new AtomicInteger();
+    private Executor dispatchExecutor;
+    private int dispatchCapacity;
+    private BackpressureOverflow.Strategy dispatchOverflowStrategy;
+    private volatile boolean dispatchTerminated;
+    private volatile long dispatchBehindSince;
+    private volatile int subscriberPid;
+    private int sharedMemoryCapacity;
+    private volatile long sharedMemoryOverflowEvents;
+    private int offloadThreshold;
+    private int listChunkSize;
+    private RemotePrimitiveBatch pendingPrimitives;
+    private Subscription pendingPrimitivesFlush;
+    private boolean hasLastPrimitive;
+    private long lastPrimitiveBits;
+    private RemoteReplayBuffer replayBuffer;
+    private long sequenceEpoch = newSequenceEpoch();
+    private long sequence = -1;
     private RemoteObservableListener remoteObservableListener;
 
 
@@ -81,6 +144,368 @@ public class RemoteEventController<T> {
      * @param data The data that needs to be send
      */
     public final void sendEvent(T data) {
+        if (dispatchQueue != null) {
+            if (data == null) {
+                Log.w(TAG, "Ignoring unsupported type " + data);
+            } else if (!dispatchTerminated) {
+                enqueueEvent(data);
+            }
+        } else {
+            dispatchEvent(data, null);
+        }
+    }
+
+    /**
+     * Send the given data to the client observable, using the payload already created for it
+     *
+     * @see RemoteObservables#onNext(Object)
+     */
+    final void sendEvent(T data, RemoteEventPayload payload) {
+        if (dispatchQueue != null) {
+            if (!dispatchTerminated) {
+                enqueueEvent(payload);
+            }
+        } else {
+            dispatchEvent(data, payload);
+        }
+    }
+
+    /**
+     * Packs the value to be sent with the other values of the batch, without boxing
+     *
+     * @see RemoteIntController#sendInt(int)
+     */
+    final void sendPrimitive(int value) {
+        synchronized (LOCK) {
+            RemotePrimitiveBatch batch = getPrimitiveBatch(RemoteDataType.Integer, value);
+            if (batch != null) {
+                batch.add(value);
+                onPrimitiveAdded(batch);
+            }
+        }
+    }
+
+    /**
+     * @see RemoteLongController#sendLong(long)
+     */
+    final void sendPrimitive(long value) {
+        synchronized (LOCK) {
+            RemotePrimitiveBatch batch = getPrimitiveBatch(RemoteDataType.Long, value);
+            if (batch != null) {
+                batch.add(value);
+                onPrimitiveAdded(batch);
+            }
+        }
+    }
+
+    /**
+     * @see RemoteDoubleController#sendDouble(double)
+     */
+    final void sendPrimitive(double value) {
+        synchronized (LOCK) {
+            RemotePrimitiveBatch batch = getPrimitiveBatch(RemoteDataType.Double, Double.doubleToLongBits(value));
+            if (batch != null) {
+                batch.add(value);
+                onPrimitiveAdded(batch);
+            }
+        }
+    }
+
+    /**
+     * Returns the batch the next value is packed in, or null if completed or if the value is to be ignored
+     *
+     * @param valueBits The value, or the bits of a double, to compare with the last one
+     * @see #setIgnoreIfDuplicateOfLast(boolean)
+     */
+    private RemotePrimitiveBatch getPrimitiveBatch(RemoteDataType primitiveType, long valueBits) {
+        if (completed || dispatchTerminated) {
+            return null;
+        }
+        if (ignoreIfDuplicateOfLast) {
+            if (hasLastPrimitive && valueBits == lastPrimitiveBits) {
+                Log.w(TAG, "Ignoring, as it is same as last data " + valueBits);
+                return null;
+            }
+            hasLastPrimitive = true;
+            lastPrimitiveBits = valueBits;
+        }
+        if (pendingPrimitives == null) {
+            pendingPrimitives = new RemotePrimitiveBatch(primitiveType, maxBatchSize > 1 ? maxBatchSize : DEFAULT_PRIMITIVE_BATCH_SIZE);
+        }
+        return pendingPrimitives;
+    }
+
+    /**
+     * Sends the batch once it is full, or after the batch delay.
+     * Without batching, there is no delay, only the values sent in the meantime are packed along
+     */
+    private void onPrimitiveAdded(RemotePrimitiveBatch batch) {
+        if (batch.isFull()) {
+            sendPendingPrimitives();
+        } else if (batch.size() == 1) {
+            pendingPrimitivesFlush = getBatchWorker().schedule(new Action0() {
+                @Override
+                public void call() {
+                    synchronized (LOCK) {
+                        pendingPrimitivesFlush = null;
+                        sendPendingPrimitives();
+                    }
+                }
+            }, maxBatchDelayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Sends the values packed so far to all the clients, or queues them for the dispatcher
+     */
+    private void sendPendingPrimitives() {
+        if (pendingPrimitivesFlush != null) {
+            pendingPrimitivesFlush.unsubscribe();
+            pendingPrimitivesFlush = null;
+        }
+        RemotePrimitiveBatch batch = pendingPrimitives;
+        pendingPrimitives = null;
+        if (batch != null && batch.size() > 0) {
+            if (dispatchQueue != null) {
+                enqueueEvent(batch);
+            } else {
+                dispatchPrimitives(batch);
+            }
+        }
+    }
+
+    /**
+     * Sends the packed values to all the clients
+     */
+    @SuppressWarnings("unchecked")
+    private void dispatchPrimitives(RemotePrimitiveBatch batch) {
+        synchronized (LOCK) {
+            if (completed) {
+                return;
+            }
+            //only the last value is boxed, to be sent to the clients subscribing later
+            T last = (T) batch.get(batch.size() - 1);
+            long firstSequence = sequence + 1;
+            sequence += batch.size();
+            this.lastEvent = last;
+            this.dataType = batch.getDataType();
+            this.lastPayload = new RemoteEventPayload(last, dataType, false);
+            lastPayload.setSequence(sequence);
+            if (replayBuffer != null) {
+                for (int i = 0; i < batch.size() - 1; i++) {
+                    RemoteEventPayload payload = new RemoteEventPayload(batch.get(i), dataType, false);
+                    payload.setSequence(firstSequence + i);
+                    replayBuffer.add(payload);
+                }
+                replayBuffer.add(lastPayload);
+            }
+            remoteEventHandler.sendPrimitivesToObservable(batch, firstSequence);
+        }
+    }
+
+    /**
+     * Generate an onCompleted event at the client observable.
+     */
+    public final void sendCompleted() {
+        if (dispatchQueue != null) {
+            synchronized (LOCK) {
+                //queued before the completion
+                sendPendingPrimitives();
+            }
+            enqueueTerminalEvent(new TerminalEvent(null));
+        } else {
+            dispatchCompleted();
+        }
+    }
+
+    /**
+     * Generate an onError event at the client observable.
+     */
+    public final void sendError(Exception exception) {
+        if (dispatchQueue != null) {
+            synchronized (LOCK) {
+                sendPendingPrimitives();
+            }
+            enqueueTerminalEvent(new TerminalEvent(exception));
+        } else {
+            dispatchError(exception);
+        }
+    }
+
+    /**
+     * Enables asynchronous dispatch on a shared dispatcher thread.
+     * <p>
+     * {@link #sendEvent(Object)}, {@link #sendCompleted()} and {@link #sendError(Exception)} then only
+     * queue the event, which is encoded and delivered to the client by the dispatcher, so that the producer
+     * never blocks on the binder transaction or on a client subscribing.
+     *
+     * @param capacity         Maximum number of events waiting to be dispatched
+     * @param overflowStrategy What to do when the queue is full, one of the strategies in {@link BackpressureOverflow}
+     * @see #getDispatchQueueDepth()
+     */
+    public void setAsyncDispatch(int capacity, BackpressureOverflow.Strategy overflowStrategy) {
+        setAsyncDispatch(capacity, overflowStrategy, getDefaultDispatcher());
+    }
+
+    /**
+     * Same as {@link #setAsyncDispatch(int, BackpressureOverflow.Strategy)}, dispatching on the given {@link Executor}.
+     * Events of this controller are dispatched one at a time and in order, even if the executor is multi threaded.
+     */
+    public void setAsyncDispatch(int capacity, BackpressureOverflow.Strategy overflowStrategy, Executor executor) {
+        synchronized (LOCK) {
+            this.dispatchCapacity = capacity;
+            this.dispatchOverflowStrategy = overflowStrategy;
+            this.dispatchExecutor = executor;
+            if (dispatchQueue == null) {
+                dispatchQueue = new ConcurrentLinkedQueue<>();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of events waiting to be dispatched when using {@link #setAsyncDispatch(int, BackpressureOverflow.Strategy)}
+     */
+    public int getDispatchQueueDepth() {
+        return dispatchQueueSize.get();
+    }
+
+    /**
+     * Returns for how long, in milliseconds, the dispatcher has had events waiting for this client.
+     * This is 0 when the client has received all the events sent so far
+     *
+     * @see #setAsyncDispatch(int, BackpressureOverflow.Strategy)
+     */
+    public long getDispatchLagMillis() {
+        long behindSince = dispatchBehindSince;
+        return dispatchQueueSize.get() > 0 && behindSince > 0 ? SystemClock.uptimeMillis() - behindSince : 0;
+    }
+
+    /**
+     * Returns the process id of the first subscribed client, or 0 if no client has subscribed
+     */
+    public int getSubscriberPid() {
+        return subscriberPid;
+    }
+
+    /**
+     * Adds how far behind each of the subscribed clients is, counting the events waiting for the dispatcher
+     * and the ones held back for the client itself
+     */
+    void addClientLag(List<RemoteClientLag> clientLag) {
+        long dispatchLag = getDispatchLagMillis();
+        int dispatchQueued = dispatchQueueSize.get();
+        synchronized (LOCK) {
+            if (remoteEventHandler != null) {
+                remoteEventHandler.addClientLag(clientLag, dispatchQueued, dispatchLag);
+            }
+        }
+    }
+
+    /**
+     * Queues the event for the dispatcher, applying the overflow strategy if the queue is full
+     */
+    private void enqueueEvent(Object data) {
+        if (dispatchQueueSize.get() >= dispatchCapacity) {
+            try {
+                if (!dispatchOverflowStrategy.mayAttemptDrop()) {
+                    if (DEBUG) {
+                        Log.v(TAG, "Dispatch queue full, dropping " + data);
+                    }
+                    return;
+                }
+                if (dispatchQueue.poll() != null) {
+                    dispatchQueueSize.decrementAndGet();
+                }
+            } catch (MissingBackpressureException ex) {
+                enqueueTerminalEvent(new TerminalEvent(ex));
+                return;
+            }
+        }
+        if (dispatchQueueSize.getAndIncrement() == 0) {
+            dispatchBehindSince = SystemClock.uptimeMillis();
+        }
+        dispatchQueue.offer(data);
+        scheduleDispatch();
+    }
+
+    private void enqueueTerminalEvent(TerminalEvent event) {
+        if (!dispatchTerminated) {
+            dispatchTerminated = true;
+            if (dispatchQueueSize.getAndIncrement() == 0) {
+                dispatchBehindSince = SystemClock.uptimeMillis();
+            }
+            dispatchQueue.offer(event);
+            scheduleDispatch();
+        }
+    }
+
+    private void scheduleDispatch() {
+        if (dispatchWip.getAndIncrement() == 0) {
+            dispatchExecutor.execute(dispatchDrain);
+        }
+    }
+
+    /**
+     * Delivers the queued events in order, on the dispatcher
+     */
+    private final Runnable dispatchDrain = new Runnable() {
+        @Override
+        @SuppressWarnings("unchecked")
+        public void run() {
+            int missed = 1;
+            for (; ; ) {
+                Object event;
+                while ((event = dispatchQueue.poll()) != null) {
+                    dispatchQueueSize.decrementAndGet();
+                    try {
+                        if (event instanceof TerminalEvent) {
+                            Exception exception = ((TerminalEvent) event).exception;
+                            if (exception != null) {
+                                dispatchError(exception);
+                            } else {
+                                dispatchCompleted();
+                            }
+                        } else if (event instanceof RemotePrimitiveBatch) {
+                            dispatchPrimitives((RemotePrimitiveBatch) event);
+                        } else if (event instanceof RemoteEventPayload) {
+                            dispatchEvent((T) ((RemoteEventPayload) event).getData(), (RemoteEventPayload) event);
+                        } else {
+                            dispatchEvent((T) event, null);
+                        }
+                    } catch (RuntimeException ex) {
+                        //only this event is lost, the dispatcher keeps draining the queue
+                        Log.e(TAG, "Unable to dispatch event, dropping it " + event, ex);
+                    }
+                }
+                missed = dispatchWip.addAndGet(-missed);
+                if (missed == 0) {
+                    break;
+                }
+            }
+        }
+    };
+
+    /**
+     * Returns the dispatcher shared by the controllers using {@link #setAsyncDispatch(int, BackpressureOverflow.Strategy)}
+     */
+    private static synchronized Executor getDefaultDispatcher() {
+        if (defaultDispatcher == null) {
+            defaultDispatcher = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "RemoteEventDispatcher");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return defaultDispatcher;
+    }
+
+    /**
+     * Sends the event to the client, creating its payload if not given
+     */
+    private void dispatchEvent(T data, RemoteEventPayload payload) {
         synchronized (LOCK) {
             if (!completed) {
                 if (ignoreIfDuplicateOfLast) {
@@ -90,11 +515,21 @@ public class RemoteEventController<T> {
                     }
                 }
 
-                RemoteDataType dType = getDataType(data);
+                RemoteDataType dType = payload != null ? payload.getDataType() : getDataType(data);
                 if (dType != RemoteDataType.UnKnown) {
                     this.lastEvent = data;
                     this.dataType = dType;
-                    remoteEventHandler.sendEventToObservable(lastEvent, dataType);
+                    this.lastPayload = payload != null ? payload : new RemoteEventPayload(data, dType, false);
+                    if (lastPayload.getSequence() >= 0) {
+                        //numbered by the RemoteObservables it was sent to
+                        sequence = Math.max(sequence, lastPayload.getSequence());
+                    } else {
+                        lastPayload.setSequence(++sequence);
+                    }
+                    if (replayBuffer != null) {
+                        replayBuffer.add(lastPayload);
+                    }
+                    remoteEventHandler.sendEventToObservable(lastPayload);
                 } else {
                     Log.w(TAG, "Ignoring unsupported type " + data);
                 }
@@ -103,11 +538,12 @@ public class RemoteEventController<T> {
     }
 
     /**
-     * Generate an onCompleted event at the client observable.
+     * Sends onCompleted to the client
      */
-    public final void sendCompleted() {
+    private void dispatchCompleted() {
         synchronized (LOCK) {
             if (!completed) {
+                sendPendingPrimitives();
                 completed = true;
                 remoteEventHandler.sendOnCompleted();
             }
@@ -115,11 +551,12 @@ public class RemoteEventController<T> {
     }
 
     /**
-     * Generate an onError event at the client observable.
+     * Sends onError to the client
      */
-    public final void sendError(Exception exception) {
+    private void dispatchError(Exception exception) {
         synchronized (LOCK) {
             if (!completed) {
+                sendPendingPrimitives();
                 lastException = exception;
                 completed = true;
                 remoteEventHandler.sendOnError(exception);
@@ -178,6 +615,10 @@ public class RemoteEventController<T> {
             onUnSubscribed();
             completed = true;
             remoteEventHandler = null;
+            if (batchWorker != null) {
+                batchWorker.unsubscribe();
+                batchWorker = null;
+            }
             if (remoteObservableListener != null) {
                 remoteObservableListener.onClosed();
             }
@@ -200,368 +641,1069 @@ public class RemoteEventController<T> {
     }
 
     /**
-     * Returns what type of data this is
+     * If set, the events are written directly to the binder transaction as a type tag
+     * followed by the raw value, instead of building a {@link Bundle} for each event.
+     * A list of numbers of the same type is then sent as a single primitive array.
+     * The client should be using a version of RxRemote that supports it.
+     * <p>
+     * The {@link Bundle} format used otherwise is the one older clients read, and does not get the packing.
+     * Primitive arrays are always sent in the compact format, as the Bundle format has no type for them.
+     * Default false
      */
-    private RemoteDataType getDataType(Object data) {
-        if (data != null) {
-            if (lastDataTypeClass == data.getClass()) {
-                return lastDataType;
+    public void setCompactEncoding(boolean compactEncoding) {
+        this.compactEncoding = compactEncoding;
+    }
+
+    /**
+     * Enables batching of events. Events are collected for up to {@code maxBatchSize} items or
+     * {@code maxBatchDelayMillis} milliseconds, and then delivered to the client in a single
+     * transaction, in the order they were sent. Batched events always use the compact encoding.
+     * <p>
+     * Use a {@code maxBatchSize} of 1 or less to disable. Disabled by default
+     */
+    public void setBatching(int maxBatchSize, long maxBatchDelayMillis) {
+        synchronized (LOCK) {
+            this.maxBatchSize = maxBatchSize;
+            this.maxBatchDelayMillis = maxBatchDelayMillis;
+        }
+    }
+
+    /**
+     * Keeps the most recent events, and replays them to each client as it subscribes, instead of only the last one.
+     * The replayed events are sent in a single transaction when possible, so keep the size bound well below the
+     * binder transaction limit.
+     * The client should be using a version of RxRemote that supports batching.
+     * <p>
+     * A bound of 0 is not applied. Use 0 for all the bounds to disable. Disabled by default
+     *
+     * @param maxCount     Maximum number of events kept
+     * @param maxAgeMillis Maximum time an event is kept for
+     * @param maxBytes     Maximum total size of the events kept, as encoded
+     */
+    public void setReplay(int maxCount, long maxAgeMillis, long maxBytes) {
+        synchronized (LOCK) {
+            if (RemoteReplayBuffer.isBounded(maxCount, maxAgeMillis, maxBytes)) {
+                replayBuffer = new RemoteReplayBuffer(maxCount, maxAgeMillis, maxBytes);
+                if (lastPayload != null) {
+                    replayBuffer.add(lastPayload);
+                }
             } else {
-                lastDataTypeClass = data.getClass();
-                lastDataType = findDataType(data);
-                return lastDataType;
+                replayBuffer = null;
             }
-        } else {
-            return RemoteDataType.UnKnown;
         }
     }
 
     /**
-     * Finds the type of data
+     * Returns a new identifier for a numbering of events, unique to each source of events
      */
-    private RemoteDataType findDataType(Object data) {
-        if (data instanceof Byte) {
-            return RemoteDataType.Byte;
-        }
-        if (data instanceof Short) {
-            return RemoteDataType.Short;
-        }
-        if (data instanceof Integer) {
-            return RemoteDataType.Integer;
-        }
-        if (data instanceof Long) {
-            return RemoteDataType.Long;
-        }
-        if (data instanceof Float) {
-            return RemoteDataType.Float;
-        }
-        if (data instanceof Double) {
-            return RemoteDataType.Double;
-        }
-        if (data instanceof String) {
-            return RemoteDataType.String;
-        }
-        if (data instanceof Character) {
-            return RemoteDataType.Char;
-        }
-        if (data instanceof Boolean) {
-            return RemoteDataType.Boolean;
-        }
-        if (data instanceof List) {
-            return RemoteDataType.List;
+    static long newSequenceEpoch() {
+        return UUID.randomUUID().getMostSignificantBits();
+    }
+
+    /**
+     * Starts from the events sent before this controller was created, continuing their numbering
+     *
+     * @param lastPayload The last event sent, if any, sent to the clients as they subscribe
+     * @param events      The events kept for replay, if any
+     * @see RemoteObservables#newObservable()
+     */
+    @SuppressWarnings("unchecked")
+    final void preload(long epoch, long sequence, RemoteEventPayload lastPayload, RemoteReplayBuffer events) {
+        synchronized (LOCK) {
+            this.sequenceEpoch = epoch;
+            this.sequence = sequence;
+            if (lastPayload != null) {
+                this.lastEvent = (T) lastPayload.getData();
+                this.dataType = lastPayload.getDataType();
+                this.lastPayload = lastPayload;
+            }
+            if (replayBuffer != null && events != null) {
+                replayBuffer.addAll(events);
+            }
         }
-        if (data instanceof Parcelable) {
-            return RemoteDataType.Parcelable;
-        } else if (getParcelerClass(data) != null) {
-            return RemoteDataType.Parceler;
-        } else if (getRemoterBinder(data) != null) {
-            return RemoteDataType.Remoter;
-        } else {
-            return RemoteDataType.UnKnown;
+    }
+
+    /**
+     * Makes this controller honour the demand of the client. Events the client has not yet
+     * requested are held back according to the given strategy, instead of being sent as
+     * soon as they are available.
+     * The client should be using a version of RxRemote that supports it.
+     * Disabled by default
+     *
+     * @param strategy The {@link RemoteBackpressureStrategy} to use, or null to disable
+     */
+    public void setBackpressureStrategy(RemoteBackpressureStrategy strategy) {
+        setBackpressureStrategy(strategy, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Same as {@link #setBackpressureStrategy(RemoteBackpressureStrategy)}, limiting the number of events kept
+     * by {@link RemoteBackpressureStrategy#BUFFER}. The client receives a {@link MissingBackpressureException}
+     * if the buffer overflows.
+     */
+    public void setBackpressureStrategy(RemoteBackpressureStrategy strategy, int bufferSize) {
+        synchronized (LOCK) {
+            this.backpressureStrategy = strategy;
+            this.backpressureBufferSize = bufferSize;
         }
     }
 
+    /**
+     * Delivers the events to the remote clients through a ring buffer in shared memory, instead of a binder
+     * transaction for each event or batch. Binder is then only used to set up the ring, and to wake up the client
+     * when it has stopped polling the ring. Primitives are copied to the ring as is, other types are marshalled,
+     * and the ones that can not be marshalled, such as @Remoter types, are still sent in a transaction.
+     * <p>
+     * When the ring of a client is full, the events are sent through binder transactions, in order, until the client
+     * has caught up, see {@link #getSharedMemoryOverflowEvents()}.
+     * Needs API level 27, and falls back to binder transactions below that, or if the client does not support it.
+     * Disabled by default
+     *
+     * @param capacityBytes Size of the ring for each client, or 0 to disable
+     */
+    public void setSharedMemoryTransport(int capacityBytes) {
+        synchronized (LOCK) {
+            this.sharedMemoryCapacity = capacityBytes;
+        }
+    }
 
     /**
-     * Writes the @Parcel data
+     * Moves the events larger than the given size to shared memory, and sends only its file descriptor in
+     * the transaction, so that large lists or {@link Parcelable}s do not fail with a
+     * {@link TransactionTooLargeException}, nor use up the binder buffer shared by the whole process.
+     * When the same event is sent to many clients, they all map the same shared memory.
+     * <p>
+     * The client should be using a version of RxRemote that supports it. Needs API level 27.
+     * Disabled by default
+     *
+     * @param thresholdBytes Size of the encoded event above which it is moved to shared memory, or 0 to disable
      */
-    private void writeParceler(Object data, Bundle bundle, String keyPrefix) throws Exception {
-        Class parcelerClass = getParcelerClass(data);
-        if (parcelerClass != null) {
-            Class parcelClass = Class.forName(parcelerClass.getName() + "$$Parcelable");
-            Constructor constructor = parcelClass.getConstructor(parcelerClass);
-            Parcelable parcelable = (Parcelable) constructor.newInstance(data);
-            bundle.putParcelable(RemoteEventManager.REMOTE_DATA_KEY + keyPrefix, parcelable);
+    public void setLargePayloadOffload(int thresholdBytes) {
+        synchronized (LOCK) {
+            this.offloadThreshold = thresholdBytes;
         }
     }
 
     /**
-     * Writes the @Remoter data
+     * Sends the lists with more than the given number of items as a sequence of chunks, each in its own transaction,
+     * instead of flattening the whole list into a single transaction.
+     * The client puts the chunks back together before emitting the list,
+     * or emits each chunk as it arrives if it uses {@link RemoteObservable#setIncrementalLists(boolean)}.
+     * <p>
+     * The client should be using a version of RxRemote that supports it.
+     * Disabled by default
+     *
+     * @param chunkSize Maximum number of items sent in one transaction, or 0 to disable
      */
-    private void writeRemoter(Object data, Bundle bundle, String keyPrefix) throws Exception {
-        Class remoterInterfaceClass = getRemoterBinder(data);
-        if (remoterInterfaceClass != null) {
-            Class remoterStubClass = Class.forName(remoterInterfaceClass.getName() + "_Stub");
-            Constructor constructor = remoterStubClass.getConstructor(remoterInterfaceClass);
-            IBinder binder = (IBinder) constructor.newInstance(data);
-            bundle.putString(RemoteEventManager.REMOTE_DATA_EXTRA + keyPrefix, remoterInterfaceClass.getName());
-            bundle.putBinder(RemoteEventManager.REMOTE_DATA_KEY + keyPrefix, binder);
+    public void setListChunking(int chunkSize) {
+        synchronized (LOCK) {
+            this.listChunkSize = chunkSize;
         }
     }
 
+    /**
+     * Returns the number of times the shared memory ring of a client was full, and the events were sent
+     * through binder transactions instead
+     *
+     * @see #setSharedMemoryTransport(int)
+     */
+    public long getSharedMemoryOverflowEvents() {
+        return sharedMemoryOverflowEvents;
+    }
 
     /**
-     * Finds the parceler class type
+     * Returns the worker used to send the pending batch once its delay expires, and to run the timers of the pipelines
      */
-    private Class getParcelerClass(Object object) {
-        Class objClass = object.getClass();
-        boolean found = false;
-        while (!found && objClass != null) {
-            try {
-                Class.forName(objClass.getName() + "$$Parcelable");
-                found = true;
-            } catch (ClassNotFoundException ignored) {
-                objClass = objClass.getSuperclass();
-            }
+    private Scheduler.Worker getBatchWorker() {
+        if (batchWorker == null) {
+            batchWorker = Schedulers.computation().createWorker();
         }
-        return objClass;
+        return batchWorker;
     }
 
     /**
-     * Returns the remoter binder if it is of that type
+     * Returns what type of data this is
      */
-    private Class getRemoterBinder(Object object) {
-        return getRemoterBinder(object.getClass());
+    private RemoteDataType getDataType(Object data) {
+        return RemoteDataCodec.findDataType(data);
     }
 
     /**
-     * Returns the remoter binder if it is of that type
+     * Queued onCompleted, or onError if it has an exception
      */
-    private Class getRemoterBinder(Class objClass) {
-        Class remoterClass = null;
-        if (objClass != null) {
-            for (Class implementedInterface : objClass.getInterfaces()) {
-                try {
-                    Class.forName(implementedInterface.getName() + "_Stub");
-                    remoterClass = implementedInterface;
-                    break;
-                } catch (ClassNotFoundException ignored) {
-                }
-            }
-            if (remoterClass == null) {
-                return getRemoterBinder(objClass.getSuperclass());
-            }
+    private static class TerminalEvent {
+        final Exception exception;
+
+        TerminalEvent(Exception exception) {
+            this.exception = exception;
         }
-        return remoterClass;
     }
 
     class RemoteEventHandler implements RemoteEventManager {
 
-        private RemoteEventListener listener;
-        private IBinder.DeathRecipient deathRecipient;
+        /**
+         * Returns the controller this handles the clients of
+         */
+        RemoteEventController<T> getController() {
+            return RemoteEventController.this;
+        }
+
+        //changed with the LOCK held, and read without it to cancel the subscriptions right away
+        private final List<RemoteSubscriber> subscribers = new CopyOnWriteArrayList<>();
         private boolean closed;
 
         /**
-         * Close and cleanup
+         * Close and cleanup.
+         * The subscriptions of the calling client are removed, and this is closed if no other client is subscribed.
+         * Used by the clients that do not close their listener with {@link #close(RemoteEventListener)}
          */
         @Override
         public void close() {
-            clearProxy();
-            this.closed = true;
+            cancelSubscribers(Binder.getCallingPid());
+            synchronized (LOCK) {
+                if (closed) {
+                    return;
+                }
+                removeSubscribers(Binder.getCallingPid());
+                if (!subscribers.isEmpty()) {
+                    if (DEBUG) {
+                        Log.v(TAG, "Not closing, other clients still subscribed " + subscribers.size());
+                    }
+                    return;
+                }
+                this.closed = true;
+            }
             onClosed();
         }
 
         @Override
         public void subscribe(final RemoteEventListener listener) {
+            subscribe(listener, null);
+        }
+
+        @Override
+        public void subscribe(final RemoteEventListener listener, RemoteSubscriptionSpec spec) {
             if (DEBUG) {
                 Log.v(TAG, "onSubscribe " + completed + " " + lastEvent + " Closed " + closed);
             }
-            if (closed) {
+            if (closed || listener == null) {
                 return;
             }
             synchronized (LOCK) {
-                this.listener = listener;
+                RemoteSubscriber existing = findSubscriber(listener);
+                if (existing != null) {
+                    removeSubscriber(existing);
+                }
+                final RemoteSubscriber subscriber = new RemoteSubscriber(listener, Binder.getCallingPid(), spec);
                 if (!completed) {
                     if (listener instanceof RemoteEventListener_Proxy) {
-                        deathRecipient = new IBinder.DeathRecipient() {
+                        subscriber.deathRecipient = new IBinder.DeathRecipient() {
                             @Override
                             public void binderDied() {
                                 if (DEBUG) {
-                                    Log.v(TAG, "Binder dead");
+                                    Log.v(TAG, "Binder dead " + subscriber.pid);
                                 }
-                                unsubscribe();
+                                unsubscribe(listener);
                             }
                         };
-                        ((RemoteEventListener_Proxy) listener).linkToDeath(deathRecipient);
+                        ((RemoteEventListener_Proxy) listener).linkToDeath(subscriber.deathRecipient);
                     }
                 }
-                if (lastEvent != null) {
-                    sendEventToObservable(lastEvent, dataType);
+                subscribers.add(subscriber);
+                subscriberPid = subscribers.get(0).pid;
+                if (!completed && Build.VERSION.SDK_INT >= Build.VERSION_CODES.O_MR1) {
+                    subscriber.setupRing();
                 }
+                sendInitialEvents(subscriber, spec);
                 if (lastException != null) {
-                    sendOnError(lastException);
+                    subscriber.sendOnError(lastException);
                 } else if (completed) {
-                    sendOnCompleted();
-                } else {
+                    subscriber.sendOnCompleted();
+                } else if (subscribers.size() == 1) {
                     RemoteEventController.this.onSubscribed();
                 }
             }
         }
 
+        @Override
+        public void close(RemoteEventListener listener) {
+            RemoteSubscriber subscriber = listener != null ? findSubscriber(listener) : null;
+            if (subscriber != null) {
+                subscriber.cancelled = true;
+            }
+            synchronized (LOCK) {
+                if (closed) {
+                    return;
+                }
+                if (listener != null) {
+                    subscriber = findSubscriber(listener);
+                    if (subscriber != null) {
+                        removeSubscriber(subscriber);
+                    }
+                }
+                if (!subscribers.isEmpty()) {
+                    if (DEBUG) {
+                        Log.v(TAG, "Not closing, other listeners still subscribed " + subscribers.size());
+                    }
+                    return;
+                }
+                this.closed = true;
+            }
+            onClosed();
+        }
+
+        /**
+         * Removes the subscriptions of the calling client
+         */
         @Override
         public void unsubscribe() {
             if (closed) {
                 return;
             }
+            cancelSubscribers(Binder.getCallingPid());
+            synchronized (LOCK) {
+                removeSubscribers(Binder.getCallingPid());
+            }
+        }
 
-            if (listener != null) {
-                if (DEBUG) {
-                    Log.v(TAG, "on unsubscribe" + lastEvent);
+        @Override
+        public void unsubscribe(RemoteEventListener listener) {
+            if (closed) {
+                return;
+            }
+            RemoteSubscriber subscriber = findSubscriber(listener);
+            if (subscriber != null) {
+                //stops the events to it right away, even while another thread is sending them with the LOCK held
+                subscriber.cancelled = true;
+            }
+            synchronized (LOCK) {
+                subscriber = findSubscriber(listener);
+                if (subscriber != null) {
+                    removeSubscriber(subscriber);
                 }
-                RemoteEventController.this.onUnSubscribed();
-                clearProxy();
             }
         }
 
-        private void clearProxy() {
+        /**
+         * Requests more events for the subscriptions of the calling client
+         */
+        @Override
+        public void request(long n) {
+            if (closed || n <= 0) {
+                return;
+            }
             synchronized (LOCK) {
-                if (listener != null) {
-                    if (DEBUG) {
-                        Log.v(TAG, "clearProxy" + listener);
+                int pid = Binder.getCallingPid();
+                for (int i = subscribers.size() - 1; i >= 0; i--) {
+                    RemoteSubscriber subscriber = subscribers.get(i);
+                    if (subscriber.pid == pid) {
+                        subscriber.request(n);
                     }
-                    if (listener instanceof RemoteEventListener_Proxy) {
-                        ((RemoteEventListener_Proxy) listener).unlinkToDeath(deathRecipient);
-                        ((RemoteEventListener_Proxy) listener).destroyProxy();
-                    }
-                    listener = null;
-                    deathRecipient = null;
                 }
             }
         }
 
+        @Override
+        public void request(RemoteEventListener listener, long n) {
+            if (closed || n <= 0) {
+                return;
+            }
+            synchronized (LOCK) {
+                RemoteSubscriber subscriber = findSubscriber(listener);
+                if (subscriber != null) {
+                    subscriber.request(n);
+                }
+            }
+        }
 
-        /**
-         * Sends the data to observable
-         */
-        void sendEventToObservable(T data, RemoteDataType dataType) {
+        @Override
+        public void attachRing(RemoteEventListener listener) {
             if (closed) {
                 return;
             }
+            synchronized (LOCK) {
+                RemoteSubscriber subscriber = findSubscriber(listener);
+                if (subscriber != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.O_MR1) {
+                    subscriber.attachRing();
+                }
+            }
+        }
 
-            try {
-                if (DEBUG) {
-                    Log.v(TAG, "Sending event" + listener + " " + data);
+        @Override
+        public void subscribe(RemoteEventListener listener, int streamId) {
+            //streams are only served by a RemoteObservableChannel
+        }
+
+        @Override
+        public void unsubscribe(RemoteEventListener listener, int streamId) {
+        }
+
+        /**
+         * Returns the subscription of the given listener, if any
+         */
+        private RemoteSubscriber findSubscriber(RemoteEventListener listener) {
+            for (RemoteSubscriber subscriber : subscribers) {
+                if (subscriber.listener.equals(listener)) {
+                    return subscriber;
                 }
+            }
+            return null;
+        }
 
-                if (this.listener != null) {
-                    if (listener instanceof LocalEventListener) {
-                        ((LocalEventListener) listener).onLocalEvent(data);
-                    } else {
-                        Bundle remoteData = new Bundle();
-                        addDataToBundle(remoteData, data, dataType, "");
-                        listener.onRemoteEvent(remoteData);
-                    }
+        /**
+         * Stops the events to all the subscriptions of the given process, before they are removed
+         */
+        private void cancelSubscribers(int pid) {
+            for (RemoteSubscriber subscriber : subscribers) {
+                if (subscriber.pid == pid) {
+                    subscriber.cancelled = true;
                 }
-            } catch (Exception ex) {
-                if (!completed) {
-                    completed = true;
-                    onUnSubscribed();
+            }
+        }
+
+        /**
+         * Removes all the subscriptions of the given process
+         */
+        private void removeSubscribers(int pid) {
+            for (int i = subscribers.size() - 1; i >= 0; i--) {
+                RemoteSubscriber subscriber = subscribers.get(i);
+                if (subscriber.pid == pid) {
+                    removeSubscriber(subscriber);
                 }
             }
         }
 
-        private void addDataToBundle(Bundle remoteData, Object data, RemoteDataType dataType, String keyPrefix) throws Exception {
-            remoteData.putString(RemoteEventManager.REMOTE_DATA_TYPE + keyPrefix, dataType.name());
-            switch (dataType) {
-                case List:
-                    List listData = (List) data;
-                    int dataSize = listData != null ? listData.size() : 0;
-                    remoteData.putInt(RemoteEventManager.REMOTE_DATA_LIST_SIZE + keyPrefix, dataSize);
-                    RemoteDataType itemDataType = null;
-                    for (int i = 0; i < dataSize; i++) {
-                        Object item = listData.get(i);
-                        if (itemDataType == null) {
-                            itemDataType = findDataType(item);
+        /**
+         * Sends the events kept for the clients subscribing late, or the ones a resuming client has missed.
+         * A sequenced client is first told the sequence number of the first event, and how many it has lost
+         */
+        private void sendInitialEvents(RemoteSubscriber subscriber, RemoteSubscriptionSpec spec) {
+            List<RemoteEventPayload> events;
+            if (replayBuffer != null) {
+                events = replayBuffer.getPayloads();
+            } else if (lastEvent != null) {
+                events = Collections.singletonList(lastPayload);
+            } else {
+                events = Collections.emptyList();
+            }
+            if (subscriber.isSequenced()) {
+                long missed = 0;
+                long resumeFrom = spec.getResumeSequence();
+                if (resumeFrom >= 0) {
+                    if (spec.getResumeEpoch() != sequenceEpoch) {
+                        //the source has started over, the client gets the current events
+                        missed = -1;
+                    } else {
+                        int start = 0;
+                        while (start < events.size() && events.get(start).getSequence() <= resumeFrom) {
+                            start++;
                         }
-                        addDataToBundle(remoteData, item, itemDataType, keyPrefix + i);
+                        long next = start < events.size() ? events.get(start).getSequence() : sequence + 1;
+                        missed = Math.max(0, next - resumeFrom - 1);
+                        events = events.subList(start, events.size());
                     }
-                    break;
-
-                case Parcelable:
-                    remoteData.putParcelable(RemoteEventManager.REMOTE_DATA_KEY + keyPrefix, (Parcelable) data);
-                    break;
-                case Parceler:
-                    writeParceler(data, remoteData, keyPrefix);
-                    break;
-                case Remoter:
-                    writeRemoter(data, remoteData, keyPrefix);
-                    break;
-                case Byte:
-                    remoteData.putByte(RemoteEventManager.REMOTE_DATA_KEY + keyPrefix, (Byte) data);
-                    break;
-                case Short:
-                    remoteData.putShort(RemoteEventManager.REMOTE_DATA_KEY + keyPrefix, (Short) data);
-                    break;
-                case Integer:
-                    remoteData.putInt(RemoteEventManager.REMOTE_DATA_KEY + keyPrefix, (Integer) data);
-                    break;
-                case Float:
-                    remoteData.putFloat(RemoteEventManager.REMOTE_DATA_KEY + keyPrefix, (Float) data);
-                    break;
-                case Double:
-                    remoteData.putDouble(RemoteEventManager.REMOTE_DATA_KEY + keyPrefix, (Double) data);
-                    break;
-                case String:
-                    remoteData.putString(RemoteEventManager.REMOTE_DATA_KEY + keyPrefix, (String) data);
-                    break;
-                case Char:
-                    remoteData.putChar(RemoteEventManager.REMOTE_DATA_KEY + keyPrefix, (Character) data);
-                    break;
-                case Long:
-                    remoteData.putLong(RemoteEventManager.REMOTE_DATA_KEY + keyPrefix, (Long) data);
-                    break;
-                case Boolean:
-                    remoteData.putInt(RemoteEventManager.REMOTE_DATA_KEY + keyPrefix, ((Boolean) data).booleanValue() ? 1 : 0);
-                    break;
-                case UnKnown:
-                    Log.w(TAG, "Ignoring unsupported type " + data);
-                    break;
+                }
+                subscriber.startSequence(events.isEmpty() ? sequence + 1 : events.get(0).getSequence(), missed);
+            }
+            if (!events.isEmpty()) {
+                subscriber.sendReplay(events);
+            }
+        }
 
+        /**
+         * Removes the subscription, unsubscribing from the source once no client is left
+         */
+        private void removeSubscriber(RemoteSubscriber subscriber) {
+            if (subscribers.remove(subscriber)) {
+                if (DEBUG) {
+                    Log.v(TAG, "on unsubscribe " + subscriber.pid + " " + lastEvent);
+                }
+                subscriber.clearProxy();
+                subscriberPid = subscribers.isEmpty() ? 0 : subscribers.get(0).pid;
+                if (subscribers.isEmpty()) {
+                    RemoteEventController.this.onUnSubscribed();
+                }
             }
         }
 
         /**
-         * Send oncompleted
+         * Sends the data to all the subscribed clients
          */
-        void sendOnCompleted() {
+        void sendEventToObservable(RemoteEventPayload payload) {
             if (closed) {
                 return;
             }
+            for (int i = subscribers.size() - 1; i >= 0; i--) {
+                subscribers.get(i).sendEventToObservable(payload);
+            }
+        }
 
-            try {
-                if (DEBUG) {
-                    Log.v(TAG, "Sending complete" + listener);
-                }
+        /**
+         * Sends the packed values to all the subscribed clients
+         */
+        void sendPrimitivesToObservable(RemotePrimitiveBatch batch, long firstSequence) {
+            if (closed) {
+                return;
+            }
+            for (int i = subscribers.size() - 1; i >= 0; i--) {
+                subscribers.get(i).sendPrimitives(batch, firstSequence);
+            }
+        }
 
-                if (this.listener != null) {
-                    listener.onCompleted();
-                    clearProxy();
-                }
-            } catch (Exception ex) {
-                if (!completed) {
-                    completed = true;
-                    onUnSubscribed();
-                    clearProxy();
-                }
+        /**
+         * Send oncompleted to all the subscribed clients
+         */
+        void sendOnCompleted() {
+            if (closed) {
+                return;
+            }
+            for (int i = subscribers.size() - 1; i >= 0; i--) {
+                subscribers.get(i).sendOnCompleted();
             }
         }
 
         /**
-         * Send oncompleted
+         * Send onError to all the subscribed clients
          */
         void sendOnError(Exception exception) {
             if (closed) {
                 return;
             }
+            for (int i = subscribers.size() - 1; i >= 0; i--) {
+                subscribers.get(i).sendOnError(exception);
+            }
+        }
 
-            try {
+        /**
+         * Adds the lag of each subscriber, on top of the lag of the dispatcher they all share
+         */
+        void addClientLag(List<RemoteClientLag> clientLag, int dispatchQueued, long dispatchLag) {
+            long now = SystemClock.uptimeMillis();
+            for (RemoteSubscriber subscriber : subscribers) {
+                int held = (subscriber.pendingEvents != null ? subscriber.pendingEvents.size() : 0)
+                        + (subscriber.pendingBatch != null ? subscriber.pendingBatch.size() : 0);
+                long heldLag = subscriber.heldSince > 0 ? now - subscriber.heldSince : 0;
+                clientLag.add(new RemoteClientLag(subscriber.pid, dispatchQueued + held, Math.max(dispatchLag, heldLag)));
+            }
+        }
+
+        /**
+         * A client subscribed to this controller, with the events it has requested and the ones held back for it.
+         * Always accessed with the LOCK held
+         */
+        private class RemoteSubscriber {
+
+            private final RemoteEventListener listener;
+            private final int pid;
+            private IBinder.DeathRecipient deathRecipient;
+            private List<RemoteEventData> pendingBatch;
+            private Subscription pendingBatchFlush;
+            private long requested;
+            private ArrayDeque<RemoteEventPayload> pendingEvents;
+            private boolean completionPending;
+            private long heldSince;
+            private RemoteRingBuffer ringBuffer;
+            private boolean ringAttached;
+            private final boolean conflate;
+            private RemoteEventPipeline pipeline;
+            private final boolean sequenced;
+            private long nextSequence = -1;
+            //set without the LOCK when the client cancels
+            private volatile boolean cancelled;
+
+            RemoteSubscriber(RemoteEventListener listener, int pid, RemoteSubscriptionSpec spec) {
+                this.listener = listener;
+                this.pid = pid;
+                this.conflate = spec != null && spec.isConflate();
+                if (conflate) {
+                    //the first event is sent right away, the next ones as the client consumes them
+                    requested = 1;
+                }
+                if (spec != null && spec.getOperatorCount() > 0) {
+                    pipeline = RemoteEventPipeline.create(spec, new RemoteEventPipeline.Downstream() {
+                        @Override
+                        public void onEvent(RemoteEventPayload payload) {
+                            sendToClient(payload);
+                        }
+
+                        @Override
+                        public void onCompleted() {
+                            completeClient();
+                        }
+                    }, LOCK, getBatchWorker());
+                }
+                //the operators change what an event is, so only the events sent as is are numbered
+                this.sequenced = spec != null && spec.isSequenced() && pipeline == null;
+            }
+
+            boolean isSequenced() {
+                return sequenced;
+            }
+
+            /**
+             * Tells the client the sequence number of the next event, and how many it has missed
+             */
+            void startSequence(long firstSequence, long missed) {
+                try {
+                    sendPendingBatch();
+                    listener.onRemoteSequence(sequenceEpoch, firstSequence, missed);
+                    nextSequence = firstSequence;
+                } catch (Exception ex) {
+                    Log.w(TAG, "Unable to send sequence to " + pid + ", dropping the client", ex);
+                    onSendFailed();
+                }
+            }
+
+            /**
+             * Tells the client the sequence number of the next event if it does not follow the last one sent,
+             * such as after events dropped for this client
+             */
+            private void syncSequence(long sequence) {
+                if (sequenced && sequence >= 0 && sequence != nextSequence) {
+                    sendPendingBatch();
+                    listener.onRemoteSequence(sequenceEpoch, sequence, 0);
+                    nextSequence = sequence;
+                }
+            }
+
+            /**
+             * Returns how the events this client has not requested yet are held back, if at all.
+             * A conflating client only gets the latest one
+             */
+            private RemoteBackpressureStrategy getBackpressureStrategy() {
+                return conflate ? RemoteBackpressureStrategy.LATEST : backpressureStrategy;
+            }
+
+            void request(long n) {
+                requested = RemoteSubject.addCap(requested, n);
+                drainPendingEvents();
+            }
+
+            /**
+             * Offers the client a shared memory ring, if enabled
+             */
+            @RequiresApi(Build.VERSION_CODES.O_MR1)
+            void setupRing() {
+                //the sequence of the events in the ring can not be kept in step with the transactions
+                if (sharedMemoryCapacity > 0 && !sequenced && listener instanceof RemoteEventListener_Proxy) {
+                    try {
+                        ringBuffer = RemoteRingBuffer.create(sharedMemoryCapacity);
+                        listener.onRemoteRingSetup(new RemoteRingSetup(ringBuffer.getSharedMemory()));
+                    } catch (Exception ex) {
+                        Log.w(TAG, "Unable to set up shared memory, using binder transactions", ex);
+                        closeRing();
+                    }
+                }
+            }
+
+            /**
+             * Switches to the ring once the client has attached to it, or back to it once the client has read
+             * the events sent through binder meanwhile.
+             * The doorbell tells the client that the events sent before are all delivered, and to start reading the ring
+             */
+            @RequiresApi(Build.VERSION_CODES.O_MR1)
+            void attachRing() {
+                if (ringBuffer != null) {
+                    if (DEBUG) {
+                        Log.v(TAG, "Ring attached " + pid);
+                    }
+                    try {
+                        sendPendingBatch();
+                        ringAttached = true;
+                        listener.onRemoteDoorbell();
+                    } catch (Exception ex) {
+                        onSendFailed();
+                    }
+                }
+            }
+
+            /**
+             * Writes the event to the ring, ringing the doorbell if the client is parked
+             *
+             * @return false if it needs to be sent in a transaction instead
+             */
+            @RequiresApi(Build.VERSION_CODES.O_MR1)
+            private boolean offerToRing(RemoteEventPayload payload) {
+                switch (ringBuffer.offer(payload)) {
+                    case RemoteRingBuffer.OFFERED:
+                        if (ringBuffer.takeParked()) {
+                            listener.onRemoteDoorbell();
+                        }
+                        return true;
+                    case RemoteRingBuffer.FULL:
+                        sharedMemoryOverflowEvents++;
+                        if (DEBUG) {
+                            Log.v(TAG, "Ring full, sending through binder " + payload.getData());
+                        }
+                        detachRing();
+                        return false;
+                    default:
+                        detachRing();
+                        return false;
+                }
+            }
+
+            /**
+             * Sends the next events through binder, so that they stay in order with the ones in the ring.
+             * The client asks to switch back to the ring with {@link #attachRing()} once it has read those
+             */
+            private void detachRing() {
+                ringAttached = false;
+            }
+
+            private void closeRing() {
+                //there is only a ring from API level 27
+                if (ringBuffer != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.O_MR1) {
+                    ringBuffer.close();
+                    ringBuffer = null;
+                }
+                ringAttached = false;
+            }
+
+            private void clearProxy() {
                 if (DEBUG) {
-                    Log.v(TAG, "Sending onError" + listener);
+                    Log.v(TAG, "clearProxy" + listener);
                 }
+                if (listener instanceof RemoteEventListener_Proxy) {
+                    ((RemoteEventListener_Proxy) listener).unlinkToDeath(deathRecipient);
+                    ((RemoteEventListener_Proxy) listener).destroyProxy();
+                }
+                deathRecipient = null;
+                if (pipeline != null) {
+                    pipeline.close();
+                }
+                pendingBatch = null;
+                cancelPendingBatchFlush();
+                pendingEvents = null;
+                completionPending = false;
+                closeRing();
+            }
 
-                if (this.listener != null) {
-                    listener.onError(exception);
-                    clearProxy();
+            /**
+             * Sends the data to observable, through the operators the client asked for if any
+             */
+            void sendEventToObservable(RemoteEventPayload payload) {
+                if (cancelled) {
+                    return;
                 }
-            } catch (Exception ex) {
-                if (!completed) {
+                if (pipeline != null) {
+                    pipeline.onEvent(payload);
+                } else {
+                    sendToClient(payload);
+                }
+            }
+
+            /**
+             * Sends the data to observable, as long as the client has requested it
+             */
+            private void sendToClient(RemoteEventPayload payload) {
+                if (getBackpressureStrategy() != null) {
+                    if (requested == 0) {
+                        holdEvent(payload);
+                        return;
+                    }
+                    if (requested != Long.MAX_VALUE) {
+                        requested--;
+                    }
+                }
+                deliverEvent(payload);
+            }
+
+            /**
+             * Keeps the event that the client has not requested yet, as per the {@link RemoteBackpressureStrategy}
+             */
+            private void holdEvent(RemoteEventPayload payload) {
+                if (pendingEvents == null) {
+                    pendingEvents = new ArrayDeque<>();
+                }
+                switch (getBackpressureStrategy()) {
+                    case BUFFER:
+                        if (pendingEvents.size() >= backpressureBufferSize) {
+                            pendingEvents.clear();
+                            heldSince = 0;
+                            //removes this subscriber, nothing is held for it anymore
+                            sendOnError(new MissingBackpressureException("RemoteEventController: buffer of " + backpressureBufferSize + " events overflowed"));
+                            return;
+                        } else {
+                            pendingEvents.add(payload);
+                        }
+                        break;
+                    case LATEST:
+                        pendingEvents.clear();
+                        pendingEvents.add(payload);
+                        break;
+                    case DROP:
+                        if (DEBUG) {
+                            Log.v(TAG, "Dropping event not requested by client " + payload.getData());
+                        }
+                        break;
+                }
+                if (pendingEvents.isEmpty()) {
+                    heldSince = 0;
+                } else if (heldSince == 0) {
+                    heldSince = SystemClock.uptimeMillis();
+                }
+            }
+
+            /**
+             * Sends the events held back for as many as the client has requested
+             */
+            private void drainPendingEvents() {
+                if (pendingEvents != null) {
+                    while (pendingEvents != null && requested > 0 && !pendingEvents.isEmpty()) {
+                        RemoteEventPayload payload = pendingEvents.poll();
+                        if (requested != Long.MAX_VALUE) {
+                            requested--;
+                        }
+                        deliverEvent(payload);
+                    }
+                    if (pendingEvents == null || pendingEvents.isEmpty()) {
+                        heldSince = 0;
+                    }
+                    if (completionPending && pendingEvents != null && pendingEvents.isEmpty()) {
+                        completionPending = false;
+                        completeClient();
+                    }
+                }
+            }
+
+            /**
+             * Sends the data to observable
+             */
+            private void deliverEvent(RemoteEventPayload payload) {
+                if (cancelled) {
+                    return;
+                }
+                try {
+                    if (DEBUG) {
+                        Log.v(TAG, "Sending event" + listener + " " + payload.getData());
+                    }
+
+                    syncSequence(payload.getSequence());
+                    if (listener instanceof LocalEventListener) {
+                        ((LocalEventListener) listener).onLocalEvent(payload.getData());
+                    } else if (ringAttached && Build.VERSION.SDK_INT >= Build.VERSION_CODES.O_MR1 && offerToRing(payload)) {
+                        //written to the shared memory ring
+                    } else if (payload.isChunked(listChunkSize)) {
+                        sendChunks(payload);
+                    } else if (maxBatchSize > 1) {
+                        addToBatch(payload.getEventData(offloadThreshold));
+                    } else if (compactEncoding || RemoteDataCodec.isCompactOnly(payload.getDataType()) || payload.isOffloaded(offloadThreshold)) {
+                        listener.onRemoteData(payload.getEventData(offloadThreshold));
+                    } else {
+                        listener.onRemoteEvent(payload.getBundle());
+                    }
+                    if (payload.getSequence() >= 0) {
+                        nextSequence = payload.getSequence() + 1;
+                    }
+                } catch (Exception ex) {
+                    if (isTransactionTooLarge(ex)) {
+                        //only this event is lost, keep the stream going
+                        Log.e(TAG, "Event too large to send, dropping it. Use setLargePayloadOffload to send large events " + payload.getData(), ex);
+                    } else {
+                        Log.w(TAG, "Unable to send event to " + pid + ", dropping the client", ex);
+                        onSendFailed();
+                    }
+                }
+            }
+
+            /**
+             * Sends the events kept for replay, in a single batch unless each event has to go through
+             * the operators or the demand of the client
+             */
+            void sendReplay(List<RemoteEventPayload> payloads) {
+                if (payloads.size() == 1 || pipeline != null || getBackpressureStrategy() != null
+                        || !(listener instanceof RemoteEventListener_Proxy)) {
+                    for (RemoteEventPayload payload : payloads) {
+                        sendEventToObservable(payload);
+                    }
+                    return;
+                }
+                if (DEBUG) {
+                    Log.v(TAG, "Replaying " + payloads.size() + " events to " + pid);
+                }
+                try {
+                    sendPendingBatch();
+                    for (RemoteEventPayload payload : payloads) {
+                        if (cancelled) {
+                            return;
+                        }
+                        syncSequence(payload.getSequence());
+                        if (payload.isChunked(listChunkSize)) {
+                            sendChunks(payload);
+                        } else {
+                            if (pendingBatch == null) {
+                                pendingBatch = new ArrayList<>(payloads.size());
+                            }
+                            pendingBatch.add(payload.getEventData(offloadThreshold));
+                        }
+                        if (payload.getSequence() >= 0) {
+                            nextSequence = payload.getSequence() + 1;
+                        }
+                    }
+                    sendPendingBatch();
+                } catch (Exception ex) {
+                    Log.w(TAG, "Unable to replay events to " + pid + ", dropping the client", ex);
+                    onSendFailed();
+                }
+            }
+
+            /**
+             * Sends the list in chunks, after the events already in the batch
+             */
+            private void sendChunks(RemoteEventPayload payload) throws Exception {
+                sendPendingBatch();
+                for (RemoteEventChunk chunk : payload.getChunks(listChunkSize)) {
+                    if (cancelled) {
+                        return;
+                    }
+                    if (DEBUG) {
+                        Log.v(TAG, "Sending chunk " + chunk.getSequenceId() + " at " + chunk.getOffset() + "/" + chunk.getTotalSize());
+                    }
+                    listener.onRemoteDataChunk(chunk);
+                }
+            }
+
+            /**
+             * Sends the packed values, after the events already in the batch.
+             * The values go one at a time through the operators, the demand of the client and the ring, if any
+             */
+            void sendPrimitives(RemotePrimitiveBatch batch, long firstSequence) {
+                if (cancelled) {
+                    return;
+                }
+                if (pipeline != null || getBackpressureStrategy() != null || ringAttached) {
+                    for (int i = 0; i < batch.size() && !cancelled; i++) {
+                        RemoteEventPayload payload = new RemoteEventPayload(batch.get(i), batch.getDataType(), false);
+                        payload.setSequence(firstSequence + i);
+                        sendEventToObservable(payload);
+                    }
+                    return;
+                }
+                try {
+                    syncSequence(firstSequence);
+                    sendPendingBatch();
+                    listener.onRemotePrimitiveBatch(batch);
+                    nextSequence = firstSequence + batch.size();
+                } catch (Exception ex) {
+                    Log.w(TAG, "Unable to send values to " + pid + ", dropping the client", ex);
+                    onSendFailed();
+                }
+            }
+
+            private boolean isTransactionTooLarge(Throwable exception) {
+                for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+                    if (cause instanceof TransactionTooLargeException) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            /**
+             * Drops this client when the event could not be delivered.
+             * The stream stops if it was the last one
+             */
+            private void onSendFailed() {
+                if (subscribers.size() == 1 && subscribers.contains(this) && !completed) {
                     completed = true;
-                    onUnSubscribed();
-                    clearProxy();
                 }
+                removeSubscriber(this);
+            }
+
+            /**
+             * Adds the event to the pending batch, sending the batch if it is full
+             */
+            private void addToBatch(RemoteEventData eventData) {
+                if (pendingBatch == null) {
+                    pendingBatch = new ArrayList<>(maxBatchSize);
+                }
+                pendingBatch.add(eventData);
+                if (pendingBatch.size() >= maxBatchSize) {
+                    sendPendingBatch();
+                } else if (pendingBatch.size() == 1) {
+                    pendingBatchFlush = getBatchWorker().schedule(new Action0() {
+                        @Override
+                        public void call() {
+                            synchronized (LOCK) {
+                                pendingBatchFlush = null;
+                                try {
+                                    sendPendingBatch();
+                                } catch (Exception ex) {
+                                    onSendFailed();
+                                }
+                            }
+                        }
+                    }, maxBatchDelayMillis, TimeUnit.MILLISECONDS);
+                }
+            }
+
+            /**
+             * Sends the events collected so far as a single batch
+             */
+            private void sendPendingBatch() {
+                cancelPendingBatchFlush();
+                List<RemoteEventData> batch = pendingBatch;
+                pendingBatch = null;
+                if (batch != null && !batch.isEmpty() && !closed && !cancelled && subscribers.contains(this)) {
+                    if (DEBUG) {
+                        Log.v(TAG, "Sending batch of " + batch.size());
+                    }
+                    listener.onRemoteDataBatch(new RemoteEventBatch(batch));
+                }
+            }
+
+            private void cancelPendingBatchFlush() {
+                if (pendingBatchFlush != null) {
+                    pendingBatchFlush.unsubscribe();
+                    pendingBatchFlush = null;
+                }
+            }
+
+            /**
+             * Send oncompleted, after the events the operators of the client still hold
+             */
+            void sendOnCompleted() {
+                if (pipeline != null) {
+                    pipeline.onCompleted();
+                } else {
+                    completeClient();
+                }
+            }
+
+            private void completeClient() {
+                if (pendingEvents != null && !pendingEvents.isEmpty()) {
+                    //deliver once the client has requested the held back events
+                    completionPending = true;
+                    return;
+                }
+
+                try {
+                    if (DEBUG) {
+                        Log.v(TAG, "Sending complete" + listener);
+                    }
+                    sendPendingBatch();
+                    listener.onCompleted();
+                } catch (Exception ignored) {
+                }
+                removeSubscriber(this);
             }
-        }
 
+            /**
+             * Send onError
+             */
+            void sendOnError(Exception exception) {
+                try {
+                    if (DEBUG) {
+                        Log.v(TAG, "Sending onError" + listener);
+                    }
+                    sendPendingBatch();
+                    listener.onError(exception);
+                } catch (Exception ignored) {
+                }
+                removeSubscriber(this);
+            }
+        }
     }
 
 }
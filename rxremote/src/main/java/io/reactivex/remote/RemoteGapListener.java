@@ -0,0 +1,16 @@
+package io.reactivex.remote;
+
+/**
+ * Listener on the client side to get notified when events were lost, such as while reconnecting to a restarted service.
+ *
+ * @see RemoteObservable#setGapListener(RemoteGapListener)
+ */
+public interface RemoteGapListener {
+
+    /**
+     * Called before the events following the gap are delivered
+     *
+     * @param missedEvents Number of events lost, or -1 if unknown, such as when the source of events has started over
+     */
+    void onGap(long missedEvents);
+}
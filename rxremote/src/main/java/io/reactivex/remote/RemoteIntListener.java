@@ -0,0 +1,14 @@
+package io.reactivex.remote;
+
+/**
+ * Listener on the client side to get the values sent by a {@link RemoteIntController} without boxing
+ *
+ * @see RemoteObservable#setIntListener(RemoteIntListener)
+ */
+public interface RemoteIntListener {
+
+    /**
+     * Called when a value is received
+     */
+    void onData(int data);
+}
@@ -0,0 +1,55 @@
+package io.reactivex.remote;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * A part of a large list event, emitted by a {@link RemoteObservable} using {@link RemoteObservable#setIncrementalLists(boolean)}
+ * <p>
+ * The chunks of a list are emitted in order, and share the same {@link #getSequenceId()}.
+ * The first chunk of a list has an offset of 0, and the last one ends at {@link #getTotalSize()}
+ *
+ * @param <E> Type of the items of the list
+ * @see RemoteEventController#setListChunking(int)
+ */
+public final class RemoteListChunk<E> extends ArrayList<E> {
+
+    private final long sequenceId;
+    private final int offset;
+    private final int totalSize;
+
+    RemoteListChunk(Collection<? extends E> items, long sequenceId, int offset, int totalSize) {
+        super(items);
+        this.sequenceId = sequenceId;
+        this.offset = offset;
+        this.totalSize = totalSize;
+    }
+
+    /**
+     * Returns the id shared by all the chunks of the same list
+     */
+    public long getSequenceId() {
+        return sequenceId;
+    }
+
+    /**
+     * Returns the position of the first item of this chunk in the whole list
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * Returns the size of the whole list
+     */
+    public int getTotalSize() {
+        return totalSize;
+    }
+
+    /**
+     * Returns whether this is the last chunk of the list
+     */
+    public boolean isLast() {
+        return offset + size() >= totalSize;
+    }
+}
@@ -0,0 +1,14 @@
+package io.reactivex.remote;
+
+/**
+ * Listener on the client side to get the values sent by a {@link RemoteLongController} without boxing
+ *
+ * @see RemoteObservable#setLongListener(RemoteLongListener)
+ */
+public interface RemoteLongListener {
+
+    /**
+     * Called when a value is received
+     */
+    void onData(long data);
+}
@@ -1,24 +1,38 @@
 package io.reactivex.remote;
 
+import android.os.Build;
 import android.os.Bundle;
-import android.os.Handler;
-import android.os.HandlerThread;
 import android.os.IBinder;
 import android.os.Parcelable;
 import android.util.Log;
 
-import java.lang.reflect.Constructor;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+import io.reactivex.remote.internal.CancellableEventListener;
 import io.reactivex.remote.internal.LocalEventListener;
+import io.reactivex.remote.internal.RemoteDataCodec;
 import io.reactivex.remote.internal.RemoteDataType;
+import io.reactivex.remote.internal.RemoteEventBatch;
+import io.reactivex.remote.internal.RemoteEventChunk;
+import io.reactivex.remote.internal.RemoteEventData;
 import io.reactivex.remote.internal.RemoteEventListener;
 import io.reactivex.remote.internal.RemoteEventManager;
 import io.reactivex.remote.internal.RemoteEventManager_Proxy;
 import io.reactivex.remote.internal.RemoteEventManager_Stub;
+import io.reactivex.remote.internal.RemotePrimitiveBatch;
+import io.reactivex.remote.internal.RemoteReconnectScheduler;
+import io.reactivex.remote.internal.RemoteRingBuffer;
+import io.reactivex.remote.internal.RemoteRingConsumer;
+import io.reactivex.remote.internal.RemoteRingSetup;
+import io.reactivex.remote.internal.RemoteStreamBatch;
 import io.reactivex.remote.internal.RemoteSubject;
+import io.reactivex.remote.internal.RemoteSubscriptionSpec;
 import rx.Observable;
 import rx.Subscription;
 import rx.functions.Action1;
@@ -41,6 +55,7 @@ import rx.functions.Action1;
  *
  * @param <T> Supported types are {@link String}, {@link Byte}, {@link Short}, {@link Integer}, {@link Long},
  *            {@link Float}, {@link Double}, {@link Boolean}, {@link Parcelable},
+ *            <code>int[]</code>, <code>long[]</code>, <code>float[]</code>, <code>double[]</code>, <code>byte[]</code>,
  *            or any class annotated with <a href=\"https://github.com/johncarl81/parceler\">@Parcel</a>
  * @author js
  * @see RemoteObservables
@@ -71,7 +86,22 @@ public class RemoteObservable<T> implements Parcelable {
     private final Object dataLock = new Object();
     private Subscription internalSubscription;
     private RemoteDataListener<T> dataListener;
-    private boolean closed;
+    private volatile boolean closed;
+    private volatile boolean incrementalLists;
+    private boolean conflate;
+    private RemotePipeline pipeline;
+    private volatile RemoteGapListener gapListener;
+    private long resumeEpoch;
+    private long resumeSequence = -1;
+    private volatile RemoteIntListener intListener;
+    private volatile RemoteLongListener longListener;
+    private volatile RemoteDoubleListener doubleListener;
+    //the instances of the same remote observable share a single subscription
+    private static final Map<IBinder, RemoteObservable> sharedObservables = new HashMap<>();
+    private RemoteObservable<T> sharedObservable;
+    private final List<RemoteObservable<T>> sharers = new CopyOnWriteArrayList<>();
+    //the number of open instances holding each remote binder, as its proxy is the same for all of them
+    private static final Map<IBinder, Integer> binderHolders = new WeakHashMap<>();
 
 
     //*************************************************************
@@ -107,11 +137,30 @@ public class RemoteObservable<T> implements Parcelable {
         return this;
     }
 
+    /**
+     * Used for the observables sharing the connection of another one
+     */
+    private RemoteObservable(IBinder remoteEventBinder, RemoteEventController<T> remoteEventController) {
+        this.remoteEventBinder = remoteEventBinder;
+        this.remoteEventController = remoteEventController;
+        if (remoteEventController == null) {
+            holdBinder(remoteEventBinder);
+        }
+    }
+
     /**
      * Internally used for unparcelling
      */
+    @SuppressWarnings("unchecked")
     private RemoteObservable(android.os.Parcel in) {
         remoteEventBinder = in.readStrongBinder();
+        //sent within the same process, the events are then handed over from the controller as is
+        RemoteEventManager localEventManager = RemoteEventManager_Stub.getLocalImplementation(remoteEventBinder);
+        if (localEventManager instanceof RemoteEventController.RemoteEventHandler) {
+            remoteEventController = ((RemoteEventController<T>.RemoteEventHandler) localEventManager).getController();
+        } else {
+            holdBinder(remoteEventBinder);
+        }
     }
 
     @Override
@@ -126,6 +175,11 @@ public class RemoteObservable<T> implements Parcelable {
 
     /**
      * Returns an {@link Observable} which will receive the data send from the service side.
+     * <p>
+     * The instances of the same remote observable in this process, such as when it is returned by the
+     * service more than once, share a single subscription to the service. An instance set up to receive
+     * the events differently, such as with {@link #setConflation(boolean)} or {@link #setPipeline(RemotePipeline)},
+     * has its own subscription.
      */
     public Observable<T> getObservable() {
         if (closed) {
@@ -134,9 +188,117 @@ public class RemoteObservable<T> implements Parcelable {
         if (remoteEventController != null) {
             return getLocalObservable();
         }
+        RemoteObservable<T> sharedObservable = getSharedObservable();
+        if (sharedObservable != null) {
+            if (sharedObservable.closed) {
+                //the shared subscription has completed
+                close();
+                throw new IllegalStateException("Already closed");
+            }
+            return sharedObservable.getRemoteSubject().asObservable();
+        }
         return getRemoteSubject().asObservable();
     }
 
+    /**
+     * Returns the instance holding the subscription shared by all the instances of this remote observable
+     * in this process, or null if this one needs a subscription of its own
+     */
+    @SuppressWarnings("unchecked")
+    private synchronized RemoteObservable<T> getSharedObservable() {
+        if (sharedObservable == null && remoteSubject == null && isShareable()) {
+            synchronized (sharedObservables) {
+                RemoteObservable<T> observable = sharedObservables.get(remoteEventBinder);
+                if (observable == null || observable.closed) {
+                    observable = new RemoteObservable<>(remoteEventBinder, null);
+                    sharedObservables.put(remoteEventBinder, observable);
+                }
+                observable.sharers.add(this);
+                sharedObservable = observable;
+            }
+        }
+        return sharedObservable;
+    }
+
+    /**
+     * Returns whether the events are delivered as is, so that the subscription can be shared
+     */
+    private boolean isShareable() {
+        return !incrementalLists && intListener == null && longListener == null && doubleListener == null
+                && getSubscriptionSpec(conflate).isDefault();
+    }
+
+    /**
+     * Stops sharing the subscription with the given instance, closing it once no instance is left
+     */
+    private void release(RemoteObservable<T> sharer) {
+        boolean last;
+        synchronized (sharedObservables) {
+            sharers.remove(sharer);
+            last = sharers.isEmpty();
+            if (last) {
+                //the next instance gets a subscription of its own
+                unshare(remoteEventBinder);
+            }
+        }
+        if (last) {
+            close();
+        }
+    }
+
+    /**
+     * Stops handing out the subscription of this instance to the new instances of the same remote observable
+     */
+    private void unshare(IBinder binder) {
+        synchronized (sharedObservables) {
+            if (binder != null && sharedObservables.get(binder) == this) {
+                sharedObservables.remove(binder);
+            }
+        }
+    }
+
+    /**
+     * Closes the instances sharing the subscription of this one, once it has ended.
+     * The last one to go closes this one
+     */
+    private void closeSharers() {
+        for (RemoteObservable<T> sharer : sharers) {
+            sharer.close();
+        }
+    }
+
+    /**
+     * Counts this instance as holding the given remote binder
+     */
+    private static void holdBinder(IBinder binder) {
+        if (binder != null) {
+            synchronized (binderHolders) {
+                Integer holders = binderHolders.get(binder);
+                binderHolders.put(binder, holders != null ? holders + 1 : 1);
+            }
+        }
+    }
+
+    /**
+     * Stops counting an instance as holding the given remote binder
+     *
+     * @return true if no other instance holds it, so that its proxy can be destroyed
+     */
+    private static boolean releaseBinder(IBinder binder) {
+        if (binder == null) {
+            return false;
+        }
+        synchronized (binderHolders) {
+            Integer holders = binderHolders.get(binder);
+            if (holders == null || holders <= 1) {
+                binderHolders.remove(binder);
+                return true;
+            }
+            binderHolders.put(binder, holders - 1);
+            return false;
+        }
+    }
+
     /**
      * Same as {@link #getObservable()}, but to be used if this {@link RemoteObservable} is a local instance.
      *
@@ -188,7 +350,79 @@ public class RemoteObservable<T> implements Parcelable {
         this.dataListener = dataListener;
     }
 
-    private void registerInternalObserver() {
+    /**
+     * Sets a listener to get the values sent by a {@link RemoteIntController} without boxing.
+     * The values are then delivered only to this listener, and not to the {@link #getObservable()}
+     */
+    public void setIntListener(RemoteIntListener intListener) {
+        this.intListener = intListener;
+        if (intListener != null) {
+            registerInternalObserver();
+        }
+    }
+
+    /**
+     * Sets a listener to get the values sent by a {@link RemoteLongController} without boxing.
+     * The values are then delivered only to this listener, and not to the {@link #getObservable()}
+     */
+    public void setLongListener(RemoteLongListener longListener) {
+        this.longListener = longListener;
+        if (longListener != null) {
+            registerInternalObserver();
+        }
+    }
+
+    /**
+     * Sets a listener to get the values sent by a {@link RemoteDoubleController} without boxing.
+     * The values are then delivered only to this listener, and not to the {@link #getObservable()}
+     */
+    public void setDoubleListener(RemoteDoubleListener doubleListener) {
+        this.doubleListener = doubleListener;
+        if (doubleListener != null) {
+            registerInternalObserver();
+        }
+    }
+
+    /**
+     * Delivers the packed values to the primitive listener if there is one.
+     *
+     * @return false if there is no listener for the type of values
+     */
+    private boolean deliverPrimitives(RemotePrimitiveBatch batch) {
+        int size = batch.size();
+        switch (batch.getDataType()) {
+            case Integer:
+                RemoteIntListener intListener = this.intListener;
+                if (intListener == null) {
+                    return false;
+                }
+                for (int i = 0; i < size; i++) {
+                    intListener.onData(batch.getInt(i));
+                }
+                return true;
+            case Long:
+                RemoteLongListener longListener = this.longListener;
+                if (longListener == null) {
+                    return false;
+                }
+                for (int i = 0; i < size; i++) {
+                    longListener.onData(batch.getLong(i));
+                }
+                return true;
+            case Double:
+                RemoteDoubleListener doubleListener = this.doubleListener;
+                if (doubleListener == null) {
+                    return false;
+                }
+                for (int i = 0; i < size; i++) {
+                    doubleListener.onData(batch.getDouble(i));
+                }
+                return true;
+        }
+        return false;
+    }
+
+    private synchronized void registerInternalObserver() {
         if (internalSubscription == null) {
             internalSubscription = getObservable().subscribe(new Action1<T>() {
                 @Override
@@ -213,8 +447,15 @@ public class RemoteObservable<T> implements Parcelable {
                 internalSubscription.unsubscribe();
                 internalSubscription = null;
             }
+            if (sharedObservable != null) {
+                sharedObservable.release(this);
+                sharedObservable = null;
+            }
+            unshare(remoteEventBinder);
             if (remoteSubject != null) {
                 remoteSubject.close();
+            } else if (remoteEventController == null) {
+                releaseBinder(remoteEventBinder);
             }
             if (localSubject != null) {
                 localSubject.close();
@@ -231,12 +472,95 @@ public class RemoteObservable<T> implements Parcelable {
 
     /**
      * Sets a Callable to be used to reconnect if the connection with the remote
-     * service dies.
+     * service dies. It is called on a thread shared by all the observables, and called again
+     * with an increasing delay if it throws or returns null.
      */
     public void setReconnecter(Callable<RemoteObservable<T>> reconnecter) {
         this.reconnecter = reconnecter;
     }
 
+    /**
+     * Sets whether to get only the latest event. The service then keeps only the newest event not yet sent,
+     * and sends it once the previous one is consumed, instead of every intermediate event.
+     * Use for state such as battery level or progress, where only the current value matters.
+     * <p>
+     * Set before subscribing. Needs the service to be using a version of RxRemote that supports it.
+     * Has no effect on an instance from a service in the same process, which is handed every event as is.
+     * Disabled by default
+     */
+    public void setConflation(boolean conflate) {
+        this.conflate = conflate;
+    }
+
+    /**
+     * Sets the operators the service applies to the events before sending them, such as
+     * {@link RemotePipeline#sample(long, java.util.concurrent.TimeUnit)} or {@link RemotePipeline#take(int)}.
+     * The events they drop are never sent, saving their encoding and the transactions.
+     * <p>
+     * Set before subscribing. Needs the service to be using a version of RxRemote that supports it.
+     */
+    public void setPipeline(RemotePipeline pipeline) {
+        this.pipeline = pipeline;
+    }
+
+    /**
+     * Returns a {@link RemoteObservable} of the events gathered in lists of the given count at the service side,
+     * after the operators set with {@link #setPipeline(RemotePipeline)}. The last list may be shorter.
+     * It shares the connection of this one, and is closed on its own.
+     *
+     * @see Observable#buffer(int)
+     */
+    public RemoteObservable<List<T>> getBufferedObservable(int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("count must be positive");
+        }
+        RemoteObservable<List<T>> bufferedObservable = new RemoteObservable<>(remoteEventBinder, (RemoteEventController<List<T>>) (RemoteEventController) remoteEventController);
+        bufferedObservable.pipeline = (pipeline != null ? pipeline : new RemotePipeline()).with(RemoteSubscriptionSpec.OP_BUFFER, count);
+        return bufferedObservable;
+    }
+
+    /**
+     * Sets a listener to get notified when events were lost, such as while reconnecting after the service died.
+     * <p>
+     * The events are numbered by the service when a reconnecter or this listener is set. On reconnect, the
+     * service then sends only the events this client has not received yet, as far as it still keeps them
+     * (see {@link RemoteEventController#setReplay(int, long, long)}), and reports the ones lost through this listener.
+     * Not supported along with {@link #setPipeline(RemotePipeline)}.
+     * <p>
+     * Set before subscribing. Needs the service to be using a version of RxRemote that supports it.
+     */
+    public void setGapListener(RemoteGapListener gapListener) {
+        this.gapListener = gapListener;
+    }
+
+    /**
+     * Returns what to ask the service for at subscription
+     */
+    private RemoteSubscriptionSpec getSubscriptionSpec(boolean conflate) {
+        RemoteSubscriptionSpec spec = new RemoteSubscriptionSpec().setConflate(conflate);
+        RemotePipeline pipeline = this.pipeline;
+        if (pipeline != null) {
+            pipeline.applyTo(spec);
+        }
+        if (resumeSequence >= 0) {
+            spec.setResumeFrom(resumeEpoch, resumeSequence);
+        } else if (reconnecter != null || gapListener != null) {
+            spec.setSequenced(true);
+        }
+        return spec;
+    }
+
+    /**
+     * Sets whether the lists sent in chunks are emitted chunk by chunk as {@link RemoteListChunk}s,
+     * instead of the whole list once all its chunks are received.
+     * Disabled by default
+     *
+     * @see RemoteEventController#setListChunking(int)
+     */
+    public void setIncrementalLists(boolean incremental) {
+        this.incrementalLists = incremental;
+    }
+
     /**
      * Enable or disable debug prints. Disabled by default
      */
@@ -249,34 +573,58 @@ public class RemoteObservable<T> implements Parcelable {
      */
     private synchronized RemoteSubject<T> getRemoteSubject() {
         if (remoteSubject == null) {
-            final RemoteEventManager_Proxy remoteEventManager = new RemoteEventManager_Proxy(remoteEventBinder);
+            final IBinder managerBinder = remoteEventBinder;
+            final RemoteEventManager_Proxy remoteEventManager = new RemoteEventManager_Proxy(managerBinder);
             remoteSubject = new RemoteSubject<T>() {
-                RemoteEventListener remoteEventListener;
+                volatile RemoteEventListener remoteEventListener;
+                final Object ringLock = new Object();
+                volatile RemoteRingConsumer ringConsumer;
+                List pendingList;
+                long pendingListSequence;
+                //the numbering of the events, as told by the service
+                long sequenceEpoch;
+                long nextSequence = -1;
+                final RemoteReconnectScheduler.Reconnect reconnect = new RemoteReconnectScheduler.Reconnect() {
+                    @Override
+                    public boolean reconnect() {
+                        Callable<RemoteObservable<T>> reconnecter = RemoteObservable.this.reconnecter;
+                        if (reconnecter == null) {
+                            //closed meanwhile
+                            return true;
+                        }
+                        try {
+                            Log.i(TAG, "Attempting reconnection for RemoteObservable");
+                            RemoteObservable<T> reconectedObservable = reconnecter.call();
+                            if (reconectedObservable == null) {
+                                return false;
+                            }
+                            synchronized (ringLock) {
+                                if (nextSequence >= 0) {
+                                    //resume after the last event received
+                                    reconectedObservable.resumeEpoch = sequenceEpoch;
+                                    reconectedObservable.resumeSequence = nextSequence - 1;
+                                }
+                            }
+                            reconectedObservable.gapListener = gapListener;
+                            reconectedObservable.reconnecter = reconnecter;
+                            reconectedObservable.getObservable().subscribe(remoteSubject);
+                            return true;
+                        } catch (Exception ex) {
+                            Log.w(TAG, "Unable to reconnect", ex);
+                            return false;
+                        }
+                    }
+                };
                 IBinder.DeathRecipient deathRecipient = new IBinder.DeathRecipient() {
                     @Override
                     public void binderDied() {
+                        //the dead binder is not handed out to the new instances anymore
+                        unshare(managerBinder);
                         //connection with service gone.
                         //Try reconnect if a reconnecter is provided.
                         if (reconnecter != null) {
-                            int RECONNECT_DELAY = 1000;
-                            final HandlerThread handlerThread = new HandlerThread("ObservableReconnect");
-                            final Handler handler = new Handler(handlerThread.getLooper());
-                            handler.postDelayed(new Runnable() {
-                                @Override
-                                public void run() {
-                                    try {
-                                        Log.i(TAG, "Attempting reconnection for RemoteObservable");
-                                        remoteEventManager.unlinkToDeath(deathRecipient);
-                                        RemoteObservable<T> reconectedObservable = reconnecter.call();
-                                        if (reconectedObservable != null) {
-                                            reconectedObservable.getObservable().subscribe(remoteSubject);
-                                        }
-                                    } catch (Exception ex) {
-                                        Log.w(TAG, "Unable to reconnect", ex);
-                                    }
-                                    handler.getLooper().quit();
-                                }
-                            }, RECONNECT_DELAY);
+                            remoteEventManager.unlinkToDeath(deathRecipient);
+                            RemoteReconnectScheduler.schedule(managerBinder, reconnect);
                         } else {
                             Log.i(TAG, "RemoteObservable lost connection with remote service. No reconnector found");
                         }
@@ -287,11 +635,14 @@ public class RemoteObservable<T> implements Parcelable {
                 public void close() {
                     super.close();
                     reconnecter = null;
+                    RemoteReconnectScheduler.cancel(reconnect);
                     remoteEventManager.unlinkToDeath(deathRecipient);
-                    remoteEventManager.unsubscribe();
-                    remoteEventManager.close();
-                    remoteEventManager.destroyProxy();
-                    remoteEventListener = null;
+                    closeListener();
+                    //the proxy of the binder is the same for all its instances in this process
+                    if (releaseBinder(managerBinder)) {
+                        remoteEventManager.destroyProxy();
+                    }
+                    closeRing();
                 }
 
                 @Override
@@ -305,7 +656,12 @@ public class RemoteObservable<T> implements Parcelable {
                         Log.v(TAG, "onFirst subscribe ");
                     }
 
-                    remoteEventListener = new RemoteEventListener() {
+                    remoteEventListener = new CancellableEventListener() {
+                        @Override
+                        public boolean isCancelled() {
+                            return remoteEventListener != this;
+                        }
+
                         @Override
                         @SuppressWarnings("unchecked")
                         public void onRemoteEvent(Bundle remoteData) {
@@ -315,8 +671,166 @@ public class RemoteObservable<T> implements Parcelable {
                             if (DEBUG) {
                                 Log.v(TAG, "onData " + data);
                             }
-                            onDataReceived(data);
-                            remoteSubject.onNext(data);
+                            synchronized (ringLock) {
+                                drainRing();
+                                onDataReceived(data);
+                                remoteSubject.onNext(data);
+                                onConsumed(1);
+                            }
+                        }
+
+                        @Override
+                        @SuppressWarnings("unchecked")
+                        public void onRemoteData(RemoteEventData remoteData) {
+                            T data = (T) remoteData.getData();
+                            if (DEBUG) {
+                                Log.v(TAG, "onData " + data);
+                            }
+                            synchronized (ringLock) {
+                                drainRing();
+                                if (remoteData.isDecoded()) {
+                                    onDataReceived(data);
+                                    remoteSubject.onNext(data);
+                                }
+                                onConsumed(1);
+                            }
+                        }
+
+                        @Override
+                        @SuppressWarnings("unchecked")
+                        public void onRemoteDataBatch(RemoteEventBatch remoteDataBatch) {
+                            if (DEBUG) {
+                                Log.v(TAG, "onDataBatch " + remoteDataBatch.getEvents().size());
+                            }
+                            synchronized (ringLock) {
+                                drainRing();
+                                for (RemoteEventData remoteData : remoteDataBatch.getEvents()) {
+                                    if (!remoteData.isDecoded()) {
+                                        //already logged, only this event is lost
+                                        continue;
+                                    }
+                                    T data = (T) remoteData.getData();
+                                    onDataReceived(data);
+                                    remoteSubject.onNext(data);
+                                }
+                                onConsumed(remoteDataBatch.getEvents().size());
+                            }
+                        }
+
+                        @Override
+                        @SuppressWarnings("unchecked")
+                        public void onRemoteDataChunk(RemoteEventChunk remoteDataChunk) {
+                            if (DEBUG) {
+                                Log.v(TAG, "onDataChunk " + remoteDataChunk.getSequenceId() + " at " + remoteDataChunk.getOffset() + "/" + remoteDataChunk.getTotalSize());
+                            }
+                            synchronized (ringLock) {
+                                drainRing();
+                                if (remoteDataChunk.getItems() == null) {
+                                    Log.w(TAG, "Unable to read chunk of list " + remoteDataChunk.getSequenceId() + ", dropping it");
+                                    pendingList = null;
+                                    return;
+                                }
+                                if (incrementalLists) {
+                                    T data = (T) new RemoteListChunk(remoteDataChunk.getItems(), remoteDataChunk.getSequenceId(), remoteDataChunk.getOffset(), remoteDataChunk.getTotalSize());
+                                    onDataReceived(data);
+                                    remoteSubject.onNext(data);
+                                    if (((RemoteListChunk) data).isLast()) {
+                                        onConsumed(1);
+                                    }
+                                    return;
+                                }
+                                if (remoteDataChunk.getOffset() == 0) {
+                                    pendingList = new ArrayList(remoteDataChunk.getTotalSize());
+                                    pendingListSequence = remoteDataChunk.getSequenceId();
+                                } else if (pendingList == null || pendingListSequence != remoteDataChunk.getSequenceId()
+                                        || pendingList.size() != remoteDataChunk.getOffset()) {
+                                    Log.w(TAG, "Missing chunks of list " + remoteDataChunk.getSequenceId() + ", dropping it");
+                                    pendingList = null;
+                                    onConsumed(1);
+                                    return;
+                                }
+                                pendingList.addAll(remoteDataChunk.getItems());
+                                if (pendingList.size() >= remoteDataChunk.getTotalSize()) {
+                                    T data = (T) pendingList;
+                                    pendingList = null;
+                                    onDataReceived(data);
+                                    remoteSubject.onNext(data);
+                                    onConsumed(1);
+                                }
+                            }
+                        }
+
+                        @Override
+                        @SuppressWarnings("unchecked")
+                        public void onRemotePrimitiveBatch(RemotePrimitiveBatch remotePrimitiveBatch) {
+                            if (DEBUG) {
+                                Log.v(TAG, "onPrimitiveBatch " + remotePrimitiveBatch.size());
+                            }
+                            synchronized (ringLock) {
+                                drainRing();
+                                if (!deliverPrimitives(remotePrimitiveBatch)) {
+                                    for (int i = 0; i < remotePrimitiveBatch.size(); i++) {
+                                        T data = (T) remotePrimitiveBatch.get(i);
+                                        onDataReceived(data);
+                                        remoteSubject.onNext(data);
+                                    }
+                                }
+                                onSequenced(remotePrimitiveBatch.size());
+                            }
+                        }
+
+                        @Override
+                        public void onRemoteSequence(long epoch, long sequence, long missed) {
+                            if (DEBUG) {
+                                Log.v(TAG, "onSequence " + sequence + " missed " + missed);
+                            }
+                            synchronized (ringLock) {
+                                drainRing();
+                                sequenceEpoch = epoch;
+                                nextSequence = sequence;
+                                RemoteGapListener listener = gapListener;
+                                if (missed != 0 && listener != null) {
+                                    listener.onGap(missed);
+                                }
+                            }
+                        }
+
+                        @Override
+                        public void onRemoteStreamBatch(RemoteStreamBatch remoteStreamBatch) {
+                            //only sent to the listener of a RemoteObservableChannel
+                        }
+
+                        @Override
+                        public void onRemoteRingSetup(RemoteRingSetup ringSetup) {
+                            if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O_MR1) {
+                                //only offered by a service at API level 27 or above, to a client that can map it
+                                return;
+                            }
+                            synchronized (ringLock) {
+                                try {
+                                    ringConsumer = new RemoteRingConsumer(RemoteRingBuffer.attach(ringSetup.getSharedMemory()), ringLock, new Action1<Object>() {
+                                        @Override
+                                        @SuppressWarnings("unchecked")
+                                        public void call(Object data) {
+                                            onDataReceived((T) data);
+                                            remoteSubject.onNext((T) data);
+                                            onConsumed(1);
+                                        }
+                                    });
+                                    remoteEventManager.attachRing(this);
+                                } catch (Exception ex) {
+                                    Log.w(TAG, "Unable to attach to shared memory, using binder transactions", ex);
+                                    closeRing();
+                                }
+                            }
+                        }
+
+                        @Override
+                        public void onRemoteDoorbell() {
+                            RemoteRingConsumer consumer = ringConsumer;
+                            if (consumer != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.O_MR1) {
+                                consumer.wake();
+                            }
                         }
 
                         @Override
@@ -324,19 +838,33 @@ public class RemoteObservable<T> implements Parcelable {
                             if (DEBUG) {
                                 Log.v(TAG, "onCompleted ");
                             }
-                            remoteSubject.onCompleted();
+                            synchronized (ringLock) {
+                                drainRing();
+                                remoteSubject.onCompleted();
+                            }
+                            closeSharers();
                             RemoteObservable.this.close();
                         }
 
                         @Override
                         public void onError(Exception exception) {
-                            remoteSubject.onError(exception);
+                            synchronized (ringLock) {
+                                drainRing();
+                                remoteSubject.onError(exception);
+                            }
+                            closeSharers();
                             RemoteObservable.this.close();
                         }
                     };
                     try {
-                        remoteEventManager.subscribe(remoteEventListener);
+                        RemoteSubscriptionSpec spec = getSubscriptionSpec(conflate);
+                        if (spec.isDefault()) {
+                            remoteEventManager.subscribe(remoteEventListener);
+                        } else {
+                            remoteEventManager.subscribe(remoteEventListener, spec);
+                        }
                     } catch (Exception ex) {
+                        unshare(managerBinder);
                         remoteSubject.onCompleted();
                     }
                 }
@@ -347,10 +875,98 @@ public class RemoteObservable<T> implements Parcelable {
                         Log.v(TAG, "onAllUnsubscribe");
                     }
                     try {
-                        remoteEventManager.unsubscribe();
+                        unsubscribeListener();
                     } catch (Exception ignored) {
                     } finally {
                         remoteEventListener = null;
+                        closeRing();
+                    }
+                }
+
+                /**
+                 * Counts the events received, to know where to resume from
+                 */
+                private void onSequenced(int count) {
+                    if (nextSequence >= 0) {
+                        nextSequence += count;
+                    }
+                }
+
+                /**
+                 * Tells a conflating service that the events are consumed, so that it sends the latest one
+                 */
+                private void onConsumed(int count) {
+                    onSequenced(count);
+                    RemoteEventListener listener = remoteEventListener;
+                    if (conflate && listener != null) {
+                        try {
+                            remoteEventManager.request(listener, count);
+                        } catch (Exception ignored) {
+                        }
+                    }
+                }
+
+                /**
+                 * Removes the subscription of this listener only, as others may be subscribed to the same controller
+                 */
+                private void unsubscribeListener() {
+                    RemoteEventListener listener = remoteEventListener;
+                    //cancels right away, the events already on their way are dropped by the listener stub
+                    remoteEventListener = null;
+                    if (listener != null) {
+                        remoteEventManager.unsubscribe(listener);
+                    }
+                }
+
+                /**
+                 * Closes the subscription of this listener only, the service closes once no other listener is subscribed
+                 */
+                private void closeListener() {
+                    RemoteEventListener listener = remoteEventListener;
+                    remoteEventListener = null;
+                    remoteEventManager.close(listener);
+                }
+
+                /**
+                 * Delivers the events waiting in the shared memory ring, if any, before an event received through binder.
+                 * The service is then asked to switch back to the ring, which is not read until it has
+                 */
+                private void drainRing() {
+                    RemoteRingConsumer consumer = ringConsumer;
+                    if (consumer != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.O_MR1 && consumer.drainAndSuspend()) {
+                        RemoteEventListener listener = remoteEventListener;
+                        if (listener != null) {
+                            try {
+                                remoteEventManager.attachRing(listener);
+                            } catch (Exception ignored) {
+                            }
+                        }
+                    }
+                }
+
+                private void closeRing() {
+                    synchronized (ringLock) {
+                        if (ringConsumer != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.O_MR1) {
+                            ringConsumer.close();
+                            ringConsumer = null;
+                        }
+                    }
+                }
+
+                @Override
+                public void onRequest(long n) {
+                    if (conflate) {
+                        //demand is sent as the events are consumed
+                        return;
+                    }
+                    try {
+                        RemoteEventListener listener = remoteEventListener;
+                        if (listener != null) {
+                            remoteEventManager.request(listener, n);
+                        } else {
+                            remoteEventManager.request(n);
+                        }
+                    } catch (Exception ignored) {
                     }
                 }
             };
@@ -400,6 +1016,58 @@ public class RemoteObservable<T> implements Parcelable {
                             localSubject.onNext(data);
                         }
 
+                        @Override
+                        @SuppressWarnings("unchecked")
+                        public void onRemoteData(RemoteEventData remoteData) {
+                            T data = (T) remoteData.getData();
+                            onDataReceived(data);
+                            localSubject.onNext(data);
+                        }
+
+                        @Override
+                        @SuppressWarnings("unchecked")
+                        public void onRemoteDataBatch(RemoteEventBatch remoteDataBatch) {
+                            for (RemoteEventData remoteData : remoteDataBatch.getEvents()) {
+                                T data = (T) remoteData.getData();
+                                onDataReceived(data);
+                                localSubject.onNext(data);
+                            }
+                        }
+
+                        @Override
+                        public void onRemoteRingSetup(RemoteRingSetup ringSetup) {
+                            //shared memory is only used for remote clients
+                        }
+
+                        @Override
+                        public void onRemoteDataChunk(RemoteEventChunk remoteDataChunk) {
+                            //local clients get the whole list
+                        }
+
+                        @Override
+                        @SuppressWarnings("unchecked")
+                        public void onRemotePrimitiveBatch(RemotePrimitiveBatch remotePrimitiveBatch) {
+                            if (!deliverPrimitives(remotePrimitiveBatch)) {
+                                for (int i = 0; i < remotePrimitiveBatch.size(); i++) {
+                                    T data = (T) remotePrimitiveBatch.get(i);
+                                    onDataReceived(data);
+                                    localSubject.onNext(data);
+                                }
+                            }
+                        }
+
+                        @Override
+                        public void onRemoteDoorbell() {
+                        }
+
+                        @Override
+                        public void onRemoteSequence(long epoch, long sequence, long missed) {
+                        }
+
+                        @Override
+                        public void onRemoteStreamBatch(RemoteStreamBatch remoteStreamBatch) {
+                        }
+
                         @Override
                         public void onCompleted() {
                             if (DEBUG) {
@@ -414,7 +1082,8 @@ public class RemoteObservable<T> implements Parcelable {
                         }
                     };
                     try {
-                        remoteEventManager.subscribe(remoteEventListener);
+                        //local clients do not send the demand conflation relies on
+                        remoteEventManager.subscribe(remoteEventListener, getSubscriptionSpec(false));
                     } catch (Exception ex) {
                         localSubject.onCompleted();
                     }
@@ -424,9 +1093,9 @@ public class RemoteObservable<T> implements Parcelable {
                 public void close() {
                     super.close();
                     reconnecter = null;
-                    remoteEventManager.unsubscribe();
-                    remoteEventManager.close();
+                    RemoteEventListener listener = remoteEventListener;
                     remoteEventListener = null;
+                    remoteEventManager.close(listener);
                 }
 
 
@@ -436,12 +1105,31 @@ public class RemoteObservable<T> implements Parcelable {
                         Log.v(TAG, "onAllUnsubscribe");
                     }
                     try {
-                        remoteEventManager.unsubscribe();
+                        unsubscribeListener();
                     } catch (Exception ignored) {
                     } finally {
                         remoteEventListener = null;
                     }
                 }
+
+                /**
+                 * Removes the subscription of this listener only, as others may be subscribed to the same controller
+                 */
+                private void unsubscribeListener() {
+                    if (remoteEventListener != null) {
+                        remoteEventManager.unsubscribe(remoteEventListener);
+                    }
+                }
+
+                @Override
+                public void onRequest(long n) {
+                    RemoteEventListener listener = remoteEventListener;
+                    if (listener != null) {
+                        remoteEventManager.request(listener, n);
+                    } else {
+                        remoteEventManager.request(n);
+                    }
+                }
             };
         }
         return localSubject;
@@ -459,6 +1147,9 @@ public class RemoteObservable<T> implements Parcelable {
         if (dataListener != null) {
             dataListener.onData(data);
         }
+        for (RemoteObservable<T> sharer : sharers) {
+            sharer.onDataReceived(data);
+        }
     }
 
 
@@ -509,7 +1200,7 @@ public class RemoteObservable<T> implements Parcelable {
     private T getParcelerData(Bundle remoteData, String keyPrefix) {
         try {
             Object parcelerObject = remoteData.getParcelable(RemoteEventManager.REMOTE_DATA_KEY + keyPrefix);
-            return (T) parcelerObject.getClass().getMethod("getParcel", (Class[]) null).invoke(parcelerObject);
+            return (T) RemoteDataCodec.unwrapParceler(parcelerObject);
         } catch (Exception e) {
             if (DEBUG) {
                 Log.w(TAG, "Parcel exception ", e);
@@ -525,9 +1216,7 @@ public class RemoteObservable<T> implements Parcelable {
     private T getRemoterData(Bundle remoteData, String keyPrefix) {
         try {
             String remoterInterface = remoteData.getString(RemoteEventManager.REMOTE_DATA_EXTRA + keyPrefix);
-            Class parcelClass = Class.forName(remoterInterface + "_Proxy");
-            Constructor constructor = parcelClass.getConstructor(IBinder.class);
-            return (T) constructor.newInstance(remoteData.getBinder(RemoteEventManager.REMOTE_DATA_KEY + keyPrefix));
+            return (T) RemoteDataCodec.createRemoterProxy(remoterInterface, remoteData.getBinder(RemoteEventManager.REMOTE_DATA_KEY + keyPrefix));
         } catch (Exception e) {
             if (DEBUG) {
                 Log.w(TAG, "Parcel exception ", e);
@@ -0,0 +1,906 @@
+package io.reactivex.remote;
+
+import android.os.Binder;
+import android.os.Bundle;
+import android.os.DeadObjectException;
+import android.os.IBinder;
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.os.TransactionTooLargeException;
+import android.util.Log;
+import android.util.SparseArray;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.reactivex.remote.internal.LocalEventListener;
+import io.reactivex.remote.internal.RemoteDataCodec;
+import io.reactivex.remote.internal.RemoteEventBatch;
+import io.reactivex.remote.internal.RemoteEventChunk;
+import io.reactivex.remote.internal.RemoteEventData;
+import io.reactivex.remote.internal.RemoteEventListener;
+import io.reactivex.remote.internal.RemoteEventListener_Proxy;
+import io.reactivex.remote.internal.RemoteEventManager;
+import io.reactivex.remote.internal.RemoteEventManager_Proxy;
+import io.reactivex.remote.internal.RemoteEventManager_Stub;
+import io.reactivex.remote.internal.RemotePrimitiveBatch;
+import io.reactivex.remote.internal.RemoteRingSetup;
+import io.reactivex.remote.internal.RemoteStreamBatch;
+import io.reactivex.remote.internal.RemoteSubject;
+import io.reactivex.remote.internal.RemoteSubscriptionSpec;
+import rx.Observable;
+import rx.Scheduler;
+import rx.exceptions.MissingBackpressureException;
+import rx.functions.Action0;
+import rx.functions.Func0;
+import rx.schedulers.Schedulers;
+
+/**
+ * Many {@link Observable}s sent across android remote services over a single connection.
+ * <p>
+ * Each {@link RemoteObservable} has a binder of its own, and each of its subscriptions another one for the client.
+ * A channel instead carries any number of streams, identified by an id, over one binder at each side,
+ * and the events of the streams that are ready at the same time are delivered in a single transaction.
+ * <p>
+ * At the service side, add the streams with {@link #addStream(int, RemoteEventController)},
+ * and pass this {@link Parcelable} through the remote service aidl or
+ * <a href=\"https://bit.ly/Remoter\">Remoter</a> interface.
+ * At the client side use {@link #getObservable(int)} to get the {@link Observable} of a stream.
+ * <p>
+ * The events are delivered as is, the options of {@link RemoteObservable} such as conflation,
+ * sequencing or the shared memory transport do not apply to the streams of a channel.
+ *
+ * @author js
+ * @see RemoteObservable
+ */
+public class RemoteObservableChannel implements Parcelable {
+
+    public static final Creator<RemoteObservableChannel> CREATOR = new Creator<RemoteObservableChannel>() {
+        @Override
+        public RemoteObservableChannel createFromParcel(Parcel in) {
+            return new RemoteObservableChannel(in);
+        }
+
+        @Override
+        public RemoteObservableChannel[] newArray(int size) {
+            return new RemoteObservableChannel[size];
+        }
+    };
+    private static final String TAG = "RemoteObservableChannel";
+    private boolean DEBUG = false;
+
+    //the most bytes of stream events sent in a transaction, to stay well within the binder buffer
+    private static final int MAX_BATCH_BYTES = 64 * 1024;
+    //the stream id and kind written before each entry, and the size of its value
+    private static final int ENTRY_OVERHEAD_BYTES = 12;
+
+    private final Object LOCK = new Object();
+    private IBinder remoteEventBinder;
+
+    //service side
+    private final SparseArray<RemoteEventController<?>> streamControllers = new SparseArray<>();
+    private final SparseArray<Func0<RemoteEventController<?>>> streamFactories = new SparseArray<>();
+    private final List<ChannelClient> clients = new ArrayList<>();
+    private Scheduler.Worker flushWorker;
+    private RemoteObservableListener remoteObservableListener;
+    private int maxPendingEvents = 1024;
+
+    //client side
+    private RemoteEventManager_Proxy remoteEventManager;
+    private RemoteEventListener remoteEventListener;
+    private final SparseArray<RemoteSubject<Object>> streamSubjects = new SparseArray<>();
+    private IBinder.DeathRecipient deathRecipient;
+    private boolean closed;
+
+
+    //*************************************************************
+
+    /**
+     * Initialize at the service side, and then add the streams with {@link #addStream(int, RemoteEventController)}
+     */
+    public RemoteObservableChannel() {
+        this.remoteEventBinder = new RemoteEventManager_Stub(new ChannelHandler());
+    }
+
+    /**
+     * Internally used for unparcelling
+     */
+    private RemoteObservableChannel(Parcel in) {
+        remoteEventBinder = in.readStrongBinder();
+    }
+
+    /**
+     * Adds a stream at the service side, replacing the one with the same id
+     *
+     * @param streamId   The id the client asks for the stream with
+     * @param controller {@link RemoteEventController} used for generating the events of the stream
+     */
+    public RemoteObservableChannel addStream(int streamId, RemoteEventController<?> controller) {
+        synchronized (LOCK) {
+            streamControllers.put(streamId, controller);
+        }
+        return this;
+    }
+
+    /**
+     * Adds a stream at the service side whose controller is created when a client first subscribes to it,
+     * and created again for the next client once all the clients are gone
+     */
+    RemoteObservableChannel addStream(int streamId, Func0<RemoteEventController<?>> controllerFactory) {
+        synchronized (LOCK) {
+            streamFactories.put(streamId, controllerFactory);
+        }
+        return this;
+    }
+
+    /**
+     * Set the listener to get notified when the first client subscribes, and when all the clients are gone.
+     * Use in the service side to get notified about client connections
+     */
+    public RemoteObservableChannel setRemoteObservableListener(RemoteObservableListener remoteObservableListener) {
+        this.remoteObservableListener = remoteObservableListener;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of events waiting to be sent to a client.
+     * When a client falls that far behind, all its streams end with a {@link MissingBackpressureException}.
+     * Default 1024
+     */
+    public RemoteObservableChannel setMaxPendingEvents(int maxPendingEvents) {
+        this.maxPendingEvents = maxPendingEvents;
+        return this;
+    }
+
+    /**
+     * Adds a stream at the service side from an {@link Observable}
+     *
+     * @see #addStream(int, RemoteEventController)
+     */
+    public <T> RemoteObservableChannel addStream(int streamId, Observable<T> sourceObservable) {
+        return addStream(streamId, new RemoteEventController<>(sourceObservable));
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeStrongBinder(remoteEventBinder);
+    }
+
+    /**
+     * Returns an {@link Observable} which will receive the data of the given stream send from the service side.
+     * The stream is subscribed to at the service side while the {@link Observable} has subscribers.
+     *
+     * @param streamId The id the stream was added with. The {@link Observable} gets an error if there is none
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Observable<T> getObservable(final int streamId) {
+        synchronized (LOCK) {
+            if (closed) {
+                throw new IllegalStateException("Already closed");
+            }
+            RemoteSubject<Object> subject = streamSubjects.get(streamId);
+            if (subject == null) {
+                subject = new RemoteSubject<Object>() {
+                    @Override
+                    public void onFirstSubscribe() {
+                        if (DEBUG) {
+                            Log.v(TAG, "onFirst subscribe " + streamId);
+                        }
+                        synchronized (LOCK) {
+                            //subscribing again through an Observable kept from before
+                            if (!closed && streamSubjects.get(streamId) == null) {
+                                streamSubjects.put(streamId, this);
+                            }
+                        }
+                        try {
+                            getRemoteEventManager().subscribe(remoteEventListener, streamId);
+                        } catch (Exception ex) {
+                            onStreamEnded(streamId, this);
+                            onCompleted();
+                        }
+                    }
+
+                    @Override
+                    public void onAllUnsubscribe() {
+                        if (DEBUG) {
+                            Log.v(TAG, "onAllUnsubscribe " + streamId);
+                        }
+                        //kept for the next subscription, the events still on their way are dropped as it has no observers
+                        try {
+                            getRemoteEventManager().unsubscribe(remoteEventListener, streamId);
+                        } catch (Exception ignored) {
+                        }
+                    }
+                };
+                streamSubjects.put(streamId, subject);
+            }
+            return (Observable<T>) subject.asObservable();
+        }
+    }
+
+    /**
+     * Closes the connection, the {@link Observable}s of the streams will not receive any more data
+     */
+    public void close() {
+        RemoteEventManager_Proxy manager;
+        synchronized (LOCK) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            manager = remoteEventManager;
+            remoteEventManager = null;
+            for (int i = 0; i < streamSubjects.size(); i++) {
+                streamSubjects.valueAt(i).close();
+            }
+            streamSubjects.clear();
+        }
+        if (manager != null) {
+            manager.unlinkToDeath(deathRecipient);
+            try {
+                manager.close(remoteEventListener);
+            } catch (Exception ignored) {
+            }
+            manager.destroyProxy();
+        }
+    }
+
+    /**
+     * Enable or disable debug prints. Disabled by default
+     */
+    public void setDebug(boolean enable) {
+        DEBUG = enable;
+    }
+
+    /**
+     * Returns the connection to the service, made on first use along with the single listener of all the streams
+     */
+    private RemoteEventManager_Proxy getRemoteEventManager() {
+        synchronized (LOCK) {
+            if (closed) {
+                throw new IllegalStateException("Already closed");
+            }
+            if (remoteEventManager == null) {
+                remoteEventListener = new ChannelListener();
+                remoteEventManager = new RemoteEventManager_Proxy(remoteEventBinder);
+                deathRecipient = new IBinder.DeathRecipient() {
+                    @Override
+                    public void binderDied() {
+                        Log.i(TAG, "RemoteObservableChannel lost connection with remote service");
+                        onServiceDied();
+                    }
+                };
+                remoteEventManager.linkToDeath(deathRecipient);
+            }
+            return remoteEventManager;
+        }
+    }
+
+    /**
+     * Forgets the subject of the stream, if it is still the current one
+     */
+    private void onStreamEnded(int streamId, RemoteSubject<Object> subject) {
+        synchronized (LOCK) {
+            if (streamSubjects.get(streamId) == subject) {
+                streamSubjects.remove(streamId);
+            }
+        }
+    }
+
+    /**
+     * Ends all the streams with an error
+     */
+    private void onServiceDied() {
+        List<RemoteSubject<Object>> subjects = new ArrayList<>();
+        synchronized (LOCK) {
+            for (int i = 0; i < streamSubjects.size(); i++) {
+                subjects.add(streamSubjects.valueAt(i));
+            }
+            streamSubjects.clear();
+            remoteEventManager = null;
+        }
+        for (RemoteSubject<Object> subject : subjects) {
+            subject.onError(new DeadObjectException());
+        }
+    }
+
+    /**
+     * Receives the events of all the streams at the client side
+     */
+    private class ChannelListener implements RemoteEventListener {
+
+        @Override
+        public void onRemoteStreamBatch(RemoteStreamBatch remoteStreamBatch) {
+            if (DEBUG) {
+                Log.v(TAG, "onStreamBatch " + remoteStreamBatch.size());
+            }
+            for (int i = 0; i < remoteStreamBatch.size(); i++) {
+                int streamId = remoteStreamBatch.getStreamId(i);
+                RemoteSubject<Object> subject;
+                synchronized (LOCK) {
+                    subject = streamSubjects.get(streamId);
+                }
+                if (subject == null || !subject.hasObservers()) {
+                    //unsubscribed meanwhile
+                    continue;
+                }
+                switch (remoteStreamBatch.getKind(i)) {
+                    case RemoteStreamBatch.KIND_DATA:
+                        if (remoteStreamBatch.getData(i).isDecoded()) {
+                            subject.onNext(remoteStreamBatch.getData(i).getData());
+                        }
+                        break;
+                    case RemoteStreamBatch.KIND_COMPLETED:
+                        onStreamEnded(streamId, subject);
+                        subject.onCompleted();
+                        break;
+                    case RemoteStreamBatch.KIND_ERROR:
+                        onStreamEnded(streamId, subject);
+                        subject.onError(remoteStreamBatch.getError(i));
+                        break;
+                }
+            }
+        }
+
+        @Override
+        public void onRemoteEvent(Bundle remoteData) {
+        }
+
+        @Override
+        public void onCompleted() {
+        }
+
+        @Override
+        public void onError(Exception exception) {
+        }
+
+        @Override
+        public void onRemoteData(RemoteEventData remoteData) {
+        }
+
+        @Override
+        public void onRemoteDataBatch(RemoteEventBatch remoteDataBatch) {
+        }
+
+        @Override
+        public void onRemoteRingSetup(RemoteRingSetup ringSetup) {
+        }
+
+        @Override
+        public void onRemoteDoorbell() {
+        }
+
+        @Override
+        public void onRemoteDataChunk(RemoteEventChunk remoteDataChunk) {
+        }
+
+        @Override
+        public void onRemotePrimitiveBatch(RemotePrimitiveBatch remotePrimitiveBatch) {
+        }
+
+        @Override
+        public void onRemoteSequence(long epoch, long sequence, long missed) {
+        }
+    }
+
+
+    //*************************************************************
+    // Service side
+
+    /**
+     * Returns the worker the events of the clients are sent from
+     */
+    private Scheduler.Worker getFlushWorker() {
+        synchronized (LOCK) {
+            if (flushWorker == null) {
+                flushWorker = Schedulers.computation().createWorker();
+            }
+            return flushWorker;
+        }
+    }
+
+    /**
+     * Returns the client of the given listener, if any
+     */
+    private ChannelClient findClient(RemoteEventListener listener) {
+        for (ChannelClient client : clients) {
+            if (client.listener.equals(listener)) {
+                return client;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Removes the clients of the given process, or the given client only
+     */
+    private void removeClients(int pid, ChannelClient onlyClient) {
+        List<ChannelClient> removed = new ArrayList<>();
+        boolean last;
+        synchronized (LOCK) {
+            for (ChannelClient client : new ArrayList<>(clients)) {
+                if (onlyClient != null ? client == onlyClient : client.pid == pid) {
+                    clients.remove(client);
+                    removed.add(client);
+                }
+            }
+            last = !removed.isEmpty() && clients.isEmpty();
+            if (last) {
+                for (int i = 0; i < streamFactories.size(); i++) {
+                    streamControllers.remove(streamFactories.keyAt(i));
+                }
+            }
+        }
+        for (ChannelClient client : removed) {
+            client.close();
+        }
+        RemoteObservableListener listener = remoteObservableListener;
+        if (last && listener != null) {
+            listener.onClosed();
+        }
+    }
+
+    /**
+     * Serves the streams at the service side, for all the clients
+     */
+    private class ChannelHandler implements RemoteEventManager {
+
+        @Override
+        public void subscribe(RemoteEventListener listener, int streamId) {
+            if (listener == null) {
+                return;
+            }
+            ChannelClient client;
+            RemoteEventController<?> controller;
+            boolean first = false;
+            synchronized (LOCK) {
+                client = findClient(listener);
+                if (client == null) {
+                    client = new ChannelClient(listener, Binder.getCallingPid());
+                    clients.add(client);
+                    first = clients.size() == 1;
+                }
+                controller = streamControllers.get(streamId);
+                Func0<RemoteEventController<?>> controllerFactory = streamFactories.get(streamId);
+                if (controller == null && controllerFactory != null) {
+                    controller = controllerFactory.call();
+                    streamControllers.put(streamId, controller);
+                }
+            }
+            RemoteObservableListener observableListener = remoteObservableListener;
+            if (first && observableListener != null) {
+                observableListener.onSubscribed();
+            }
+            if (controller == null) {
+                client.onStreamError(streamId, new IllegalArgumentException("No stream " + streamId + " in this channel"));
+            } else {
+                client.subscribe(streamId, controller.getRemoteEventManager());
+            }
+        }
+
+        @Override
+        public void unsubscribe(RemoteEventListener listener, int streamId) {
+            ChannelClient client;
+            synchronized (LOCK) {
+                client = findClient(listener);
+            }
+            if (client != null) {
+                client.unsubscribe(streamId);
+            }
+        }
+
+        @Override
+        public void unsubscribe(RemoteEventListener listener) {
+            ChannelClient client;
+            synchronized (LOCK) {
+                client = findClient(listener);
+            }
+            if (client != null) {
+                removeClients(client.pid, client);
+            }
+        }
+
+        @Override
+        public void unsubscribe() {
+            removeClients(Binder.getCallingPid(), null);
+        }
+
+        @Override
+        public void close() {
+            removeClients(Binder.getCallingPid(), null);
+        }
+
+        @Override
+        public void close(RemoteEventListener listener) {
+            unsubscribe(listener);
+        }
+
+        @Override
+        public void subscribe(RemoteEventListener listener) {
+            //the streams are subscribed to one by one
+        }
+
+        @Override
+        public void subscribe(RemoteEventListener listener, RemoteSubscriptionSpec spec) {
+        }
+
+        @Override
+        public void request(long n) {
+        }
+
+        @Override
+        public void request(RemoteEventListener listener, long n) {
+        }
+
+        @Override
+        public void attachRing(RemoteEventListener listener) {
+        }
+    }
+
+    /**
+     * A client at the service side, holding its subscriptions to the streams and the events waiting to be sent to it
+     */
+    private class ChannelClient {
+
+        private final RemoteEventListener listener;
+        private final int pid;
+        private final SparseArray<StreamListener> streamListeners = new SparseArray<>();
+        private RemoteStreamBatch pendingBatch = new RemoteStreamBatch();
+        private IBinder.DeathRecipient deathRecipient;
+        private boolean closed;
+
+        ChannelClient(RemoteEventListener listener, int pid) {
+            this.listener = listener;
+            this.pid = pid;
+            if (listener instanceof RemoteEventListener_Proxy) {
+                deathRecipient = new IBinder.DeathRecipient() {
+                    @Override
+                    public void binderDied() {
+                        if (DEBUG) {
+                            Log.v(TAG, "Binder dead " + ChannelClient.this.pid);
+                        }
+                        removeClients(ChannelClient.this.pid, ChannelClient.this);
+                    }
+                };
+                ((RemoteEventListener_Proxy) listener).linkToDeath(deathRecipient);
+            }
+        }
+
+        void subscribe(int streamId, RemoteEventManager streamManager) {
+            StreamListener streamListener;
+            synchronized (this) {
+                if (closed || streamListeners.get(streamId) != null) {
+                    return;
+                }
+                streamListener = new StreamListener(this, streamId, streamManager);
+                streamListeners.put(streamId, streamListener);
+            }
+            //the last event, if any, is delivered right away
+            streamManager.subscribe(streamListener);
+        }
+
+        void unsubscribe(int streamId) {
+            StreamListener streamListener;
+            synchronized (this) {
+                streamListener = streamListeners.get(streamId);
+                streamListeners.remove(streamId);
+            }
+            if (streamListener != null) {
+                streamListener.unsubscribe();
+            }
+        }
+
+        void onStreamData(StreamListener streamListener, Object data) {
+            add(streamListener, RemoteStreamBatch.KIND_DATA, new RemoteEventData(data, RemoteDataCodec.findDataType(data)));
+        }
+
+        void onStreamCompleted(StreamListener streamListener) {
+            add(streamListener, RemoteStreamBatch.KIND_COMPLETED, null);
+        }
+
+        void onStreamError(StreamListener streamListener, Exception exception) {
+            add(streamListener, RemoteStreamBatch.KIND_ERROR, exception);
+        }
+
+        void onStreamError(int streamId, Exception exception) {
+            synchronized (this) {
+                pendingBatch.addError(streamId, exception);
+            }
+            scheduleFlush();
+        }
+
+        /**
+         * Adds the event of the stream to the pending batch, if the stream is still subscribed to
+         */
+        private void add(StreamListener streamListener, int kind, Object value) {
+            List<StreamListener> overflowed = null;
+            synchronized (this) {
+                int streamId = streamListener.streamId;
+                if (closed || streamListeners.get(streamId) != streamListener) {
+                    return;
+                }
+                if (kind == RemoteStreamBatch.KIND_DATA && pendingBatch.size() >= maxPendingEvents) {
+                    overflowed = onOverflow();
+                } else {
+                    addEntry(pendingBatch, streamId, kind, value);
+                    if (kind != RemoteStreamBatch.KIND_DATA) {
+                        streamListeners.remove(streamId);
+                    }
+                }
+                if (overflowed == null && pendingBatch.size() > 1) {
+                    //a flush is already scheduled
+                    return;
+                }
+            }
+            if (overflowed != null) {
+                for (StreamListener overflowedListener : overflowed) {
+                    overflowedListener.unsubscribe();
+                }
+            }
+            scheduleFlush();
+        }
+
+        /**
+         * Ends all the streams of this client that is too far behind, keeping only the pending ends of streams.
+         * Returns the listeners of the streams to unsubscribe
+         */
+        private List<StreamListener> onOverflow() {
+            Log.w(TAG, "Client " + pid + " is " + pendingBatch.size() + " events behind, ending its streams");
+            RemoteStreamBatch batch = new RemoteStreamBatch();
+            for (int i = 0; i < pendingBatch.size(); i++) {
+                if (pendingBatch.getKind(i) != RemoteStreamBatch.KIND_DATA) {
+                    addEntry(batch, pendingBatch.getStreamId(i), pendingBatch.getKind(i), pendingBatch.getError(i));
+                }
+            }
+            List<StreamListener> overflowed = new ArrayList<>();
+            for (int i = 0; i < streamListeners.size(); i++) {
+                batch.addError(streamListeners.keyAt(i), new MissingBackpressureException(
+                        "RemoteObservableChannel: queue of " + maxPendingEvents + " events overflowed"));
+                overflowed.add(streamListeners.valueAt(i));
+            }
+            streamListeners.clear();
+            pendingBatch = batch;
+            return overflowed;
+        }
+
+        /**
+         * Sends the pending events soon, along with the ones of the other streams added meanwhile
+         */
+        private void scheduleFlush() {
+            getFlushWorker().schedule(new Action0() {
+                @Override
+                public void call() {
+                    flush();
+                }
+            });
+        }
+
+        /**
+         * Sends the pending events, in as few transactions as the batch size in bytes allows.
+         * An event larger than that is sent in a transaction of its own
+         */
+        private void flush() {
+            RemoteStreamBatch batch;
+            synchronized (this) {
+                if (closed || pendingBatch.isEmpty()) {
+                    return;
+                }
+                batch = pendingBatch;
+                pendingBatch = new RemoteStreamBatch();
+            }
+            RemoteStreamBatch part = new RemoteStreamBatch();
+            int partBytes = 0;
+            for (int i = 0; i < batch.size(); i++) {
+                int streamId = batch.getStreamId(i);
+                int kind = batch.getKind(i);
+                Object value = null;
+                int entryBytes = ENTRY_OVERHEAD_BYTES;
+                if (kind == RemoteStreamBatch.KIND_DATA) {
+                    try {
+                        RemoteEventData eventData = RemoteEventData.encode(batch.getData(i).getData(), batch.getData(i).getDataType());
+                        entryBytes += eventData.getEncodedSize();
+                        value = eventData;
+                    } catch (Exception ex) {
+                        Log.w(TAG, "Unable to encode event of stream " + streamId + ", dropping it", ex);
+                        continue;
+                    }
+                } else if (kind == RemoteStreamBatch.KIND_ERROR) {
+                    Exception error = batch.getError(i);
+                    int errorBytes = getErrorSize(error);
+                    if (errorBytes < 0) {
+                        //still ends the stream, with the description of the error only
+                        error = new RuntimeException(String.valueOf(error));
+                        errorBytes = getErrorSize(error);
+                    }
+                    entryBytes += errorBytes;
+                    value = error;
+                }
+                if (!part.isEmpty() && partBytes + entryBytes > MAX_BATCH_BYTES) {
+                    if (!send(part)) {
+                        return;
+                    }
+                    part = new RemoteStreamBatch();
+                    partBytes = 0;
+                }
+                addEntry(part, streamId, kind, value);
+                partBytes += entryBytes;
+            }
+            if (!part.isEmpty()) {
+                send(part);
+            }
+        }
+
+        /**
+         * Sends the batch, dropping only its events if it is too large, or this client if it is gone.
+         * Returns whether the client is still there
+         */
+        private boolean send(RemoteStreamBatch batch) {
+            if (DEBUG) {
+                Log.v(TAG, "Sending " + batch.size() + " stream events to " + pid);
+            }
+            try {
+                listener.onRemoteStreamBatch(batch);
+                return true;
+            } catch (Exception ex) {
+                if (isTransactionTooLarge(ex)) {
+                    //only these events are lost, keep the streams going
+                    Log.e(TAG, "Stream events too large to send to " + pid + ", dropping " + batch.size() + " of them", ex);
+                    return true;
+                }
+                Log.w(TAG, "Unable to send events to " + pid + ", dropping the client", ex);
+                removeClients(pid, this);
+                return false;
+            }
+        }
+
+        /**
+         * Removes all the subscriptions of this client
+         */
+        void close() {
+            List<StreamListener> subscribed = new ArrayList<>();
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                for (int i = 0; i < streamListeners.size(); i++) {
+                    subscribed.add(streamListeners.valueAt(i));
+                }
+                streamListeners.clear();
+                pendingBatch = new RemoteStreamBatch();
+            }
+            for (StreamListener streamListener : subscribed) {
+                streamListener.unsubscribe();
+            }
+            if (listener instanceof RemoteEventListener_Proxy) {
+                ((RemoteEventListener_Proxy) listener).unlinkToDeath(deathRecipient);
+                ((RemoteEventListener_Proxy) listener).destroyProxy();
+            }
+            deathRecipient = null;
+        }
+    }
+
+    private static void addEntry(RemoteStreamBatch batch, int streamId, int kind, Object value) {
+        switch (kind) {
+            case RemoteStreamBatch.KIND_DATA:
+                batch.addData(streamId, (RemoteEventData) value);
+                break;
+            case RemoteStreamBatch.KIND_COMPLETED:
+                batch.addCompleted(streamId);
+                break;
+            case RemoteStreamBatch.KIND_ERROR:
+                batch.addError(streamId, (Exception) value);
+                break;
+        }
+    }
+
+    /**
+     * Returns the size of the error as written to a transaction, or -1 if it can not be written
+     */
+    private static int getErrorSize(Exception exception) {
+        Parcel parcel = Parcel.obtain();
+        try {
+            parcel.writeValue(exception);
+            return parcel.dataSize();
+        } catch (RuntimeException ex) {
+            return -1;
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    private static boolean isTransactionTooLarge(Throwable exception) {
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TransactionTooLargeException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Subscribed to the {@link RemoteEventController} of a stream for a client, in the process of the service
+     */
+    private static class StreamListener implements LocalEventListener {
+
+        private final ChannelClient client;
+        private final int streamId;
+        private final RemoteEventManager streamManager;
+
+        StreamListener(ChannelClient client, int streamId, RemoteEventManager streamManager) {
+            this.client = client;
+            this.streamId = streamId;
+            this.streamManager = streamManager;
+        }
+
+        void unsubscribe() {
+            try {
+                streamManager.unsubscribe(this);
+            } catch (Exception ignored) {
+            }
+        }
+
+        @Override
+        public void onLocalEvent(Object localData) {
+            client.onStreamData(this, localData);
+        }
+
+        @Override
+        public void onCompleted() {
+            client.onStreamCompleted(this);
+        }
+
+        @Override
+        public void onError(Exception exception) {
+            client.onStreamError(this, exception);
+        }
+
+        @Override
+        public void onRemoteEvent(Bundle remoteData) {
+        }
+
+        @Override
+        public void onRemoteData(RemoteEventData remoteData) {
+            client.onStreamData(this, remoteData.getData());
+        }
+
+        @Override
+        public void onRemoteDataBatch(RemoteEventBatch remoteDataBatch) {
+            for (RemoteEventData remoteData : remoteDataBatch.getEvents()) {
+                client.onStreamData(this, remoteData.getData());
+            }
+        }
+
+        @Override
+        public void onRemotePrimitiveBatch(RemotePrimitiveBatch remotePrimitiveBatch) {
+            for (int i = 0; i < remotePrimitiveBatch.size(); i++) {
+                client.onStreamData(this, remotePrimitiveBatch.get(i));
+            }
+        }
+
+        @Override
+        public void onRemoteRingSetup(RemoteRingSetup ringSetup) {
+        }
+
+        @Override
+        public void onRemoteDoorbell() {
+        }
+
+        @Override
+        public void onRemoteDataChunk(RemoteEventChunk remoteDataChunk) {
+        }
+
+        @Override
+        public void onRemoteSequence(long epoch, long sequence, long missed) {
+        }
+
+        @Override
+        public void onRemoteStreamBatch(RemoteStreamBatch remoteStreamBatch) {
+        }
+    }
+}
@@ -1,7 +1,24 @@
 package io.reactivex.remote;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.remote.internal.RemoteDataCodec;
+import io.reactivex.remote.internal.RemoteDataType;
+import io.reactivex.remote.internal.RemoteEventData;
+import io.reactivex.remote.internal.RemoteEventPayload;
+import io.reactivex.remote.internal.RemoteReplayBuffer;
+import rx.BackpressureOverflow;
+import rx.functions.Func0;
 
 /**
  * Helper class to create {@link RemoteObservable} and send data through it
@@ -24,8 +41,20 @@ import java.util.concurrent.CopyOnWriteArrayList;
  */
 public final class RemoteObservables<T> {
 
-    private boolean hasData = false;
-    private T lastData = null;
+    private RemoteEventPayload lastPayload;
+    private final long sequenceEpoch = RemoteEventController.newSequenceEpoch();
+    private long sequence = -1;
+    private boolean compactEncoding = false;
+    private int offloadThreshold;
+    private int listChunkSize;
+    private RemoteBackpressureStrategy backpressureStrategy;
+    private ThreadPoolExecutor fanOutExecutor;
+    private int fanOutQueueCapacity;
+    private BackpressureOverflow.Strategy fanOutOverflowStrategy;
+    private int replayMaxCount;
+    private long replayMaxAgeMillis;
+    private long replayMaxBytes;
+    private volatile RemoteReplayBuffer replayBuffer;
     private final CopyOnWriteArrayList<RemoteEventController<T>> remoteEventControllers = new CopyOnWriteArrayList<>();
 
     private static final ConcurrentHashMap<Object, RemoteObservables> remoteObservablesMap = new ConcurrentHashMap<>();
@@ -63,35 +92,268 @@ public final class RemoteObservables<T> {
      * @return a new instance of {@link RemoteObservable} to return to client
      */
     public RemoteObservable<T> newObservable(boolean ignoreDuplicates) {
-        final RemoteEventController<T> eventController = new RemoteEventController<>();
-        eventController.setIgnoreIfDuplicateOfLast(ignoreDuplicates);
-        remoteEventControllers.add(eventController);
+        return newObservable(ignoreDuplicates, 0, 0);
+    }
+
+    /**
+     * Creates a new {@link RemoteObservable} to return to client, which delivers the data in batches.
+     * To send data use {@link #onNext(Object)}
+     *
+     * @param ignoreDuplicates    Whether this observable to ignore duplicates send to it
+     * @param maxBatchSize        Maximum number of events delivered in a single transaction
+     * @param maxBatchDelayMillis Maximum time an event waits for the batch to fill up
+     * @return a new instance of {@link RemoteObservable} to return to client
+     * @see RemoteEventController#setBatching(int, long)
+     */
+    public RemoteObservable<T> newObservable(boolean ignoreDuplicates, int maxBatchSize, long maxBatchDelayMillis) {
+        final RemoteEventController<T> eventController = newEventController(ignoreDuplicates, maxBatchSize, maxBatchDelayMillis);
         return new RemoteObservable<>(eventController)
                 .setRemoteObservableListener(new RemoteObservableListener() {
                     @Override
-                    public void onSubscribed() {
-                        if (hasData) {
-                            eventController.sendEvent(lastData);
+                    public void onClosed() {
+                        remoteEventControllers.remove(eventController);
+                    }
+                });
+    }
+
+    /**
+     * Takes the latest data of the given topics at once, to return to client in a single transaction.
+     * <p>
+     * With subscribe, the client can also get the updates of all the topics over a single connection.
+     * As with {@link #newObservable()}, each topic then starts with its latest data, which is the one in the
+     * snapshot unless the topic was updated meanwhile. Nothing is kept for the client until it subscribes,
+     * and the subscription ends when the client closes the snapshot or dies.
+     *
+     * @param subscribe Whether to subscribe the client to the topics
+     * @param types     The types the topics are tied to, as given to {@link #of(Object)}
+     * @return a new instance of {@link RemoteTopicSnapshot} to return to client
+     */
+    public static RemoteTopicSnapshot snapshot(boolean subscribe, Object... types) {
+        List<RemoteEventData> values = new ArrayList<>(types.length);
+        final List<RemoteObservables<?>> topics = new ArrayList<>(types.length);
+        //the controllers created as the client subscribes, removed from their topic once it is gone
+        final List<RemoteEventController<?>> controllers = new ArrayList<>(types.length);
+        RemoteObservableChannel channel = subscribe ? new RemoteObservableChannel() : null;
+        for (int i = 0; i < types.length; i++) {
+            final RemoteObservables<?> remoteObservables = of(types[i]);
+            RemoteEventPayload payload;
+            synchronized (remoteObservables) {
+                payload = remoteObservables.lastPayload;
+            }
+            values.add(payload != null ? new RemoteEventData(payload.getData(), payload.getDataType()) : null);
+            if (channel != null) {
+                channel.addStream(i, new Func0<RemoteEventController<?>>() {
+                    @Override
+                    public RemoteEventController<?> call() {
+                        //starts from the latest data of the topic
+                        RemoteEventController<?> controller = remoteObservables.newEventController(false, 0, 0);
+                        synchronized (controllers) {
+                            topics.add(remoteObservables);
+                            controllers.add(controller);
+                        }
+                        return controller;
+                    }
+                });
+            }
+        }
+        if (channel != null) {
+            channel.setRemoteObservableListener(new RemoteObservableListener() {
+                @Override
+                public void onClosed() {
+                    synchronized (controllers) {
+                        for (int i = 0; i < topics.size(); i++) {
+                            topics.get(i).remoteEventControllers.remove(controllers.get(i));
                         }
+                        topics.clear();
+                        controllers.clear();
                     }
+                }
+            });
+        }
+        return new RemoteTopicSnapshot(values, channel);
+    }
+
+    /**
+     * Creates a controller that gets the data sent from now on, after the data sent so far
+     */
+    private RemoteEventController<T> newEventController(boolean ignoreDuplicates, int maxBatchSize, long maxBatchDelayMillis) {
+        final RemoteEventController<T> eventController = new RemoteEventController<>();
+        eventController.setIgnoreIfDuplicateOfLast(ignoreDuplicates);
+        eventController.setCompactEncoding(compactEncoding);
+        eventController.setLargePayloadOffload(offloadThreshold);
+        eventController.setListChunking(listChunkSize);
+        eventController.setBatching(maxBatchSize, maxBatchDelayMillis);
+        eventController.setBackpressureStrategy(backpressureStrategy);
+        synchronized (this) {
+            if (fanOutExecutor != null) {
+                eventController.setAsyncDispatch(fanOutQueueCapacity, fanOutOverflowStrategy, fanOutExecutor);
+            }
+            if (replayBuffer != null) {
+                eventController.setReplay(replayMaxCount, replayMaxAgeMillis, replayMaxBytes);
+            }
+            //the controller starts from the events of this type sent so far, numbered the same way
+            eventController.preload(sequenceEpoch, sequence, lastPayload, replayBuffer);
+            remoteEventControllers.add(eventController);
+        }
+        return eventController;
+    }
+
+    /**
+     * Sets whether the observables of this type use the compact encoding.
+     *
+     * @see RemoteEventController#setCompactEncoding(boolean)
+     */
+    public RemoteObservables<T> setCompactEncoding(boolean compactEncoding) {
+        this.compactEncoding = compactEncoding;
+        for (RemoteEventController<T> controller : remoteEventControllers) {
+            controller.setCompactEncoding(compactEncoding);
+        }
+        return this;
+    }
+
+    /**
+     * Sets the size above which the events are sent to the clients through shared memory.
+     * A large event is then written to shared memory once, and mapped by all the clients.
+     *
+     * @see RemoteEventController#setLargePayloadOffload(int)
+     */
+    public RemoteObservables<T> setLargePayloadOffload(int thresholdBytes) {
+        this.offloadThreshold = thresholdBytes;
+        for (RemoteEventController<T> controller : remoteEventControllers) {
+            controller.setLargePayloadOffload(thresholdBytes);
+        }
+        return this;
+    }
+
+    /**
+     * Sets the number of items above which the list events are sent to the clients in chunks.
+     *
+     * @see RemoteEventController#setListChunking(int)
+     */
+    public RemoteObservables<T> setListChunking(int chunkSize) {
+        this.listChunkSize = chunkSize;
+        for (RemoteEventController<T> controller : remoteEventControllers) {
+            controller.setListChunking(chunkSize);
+        }
+        return this;
+    }
+
+    /**
+     * Keeps the most recent events of this type, and replays them to each client of the observables
+     * created after this call as it subscribes, instead of only the last one.
+     * A bound of 0 is not applied. Use 0 for all the bounds to disable.
+     *
+     * @see RemoteEventController#setReplay(int, long, long)
+     */
+    public synchronized RemoteObservables<T> setReplay(int maxCount, long maxAgeMillis, long maxBytes) {
+        this.replayMaxCount = maxCount;
+        this.replayMaxAgeMillis = maxAgeMillis;
+        this.replayMaxBytes = maxBytes;
+        if (RemoteReplayBuffer.isBounded(maxCount, maxAgeMillis, maxBytes)) {
+            RemoteReplayBuffer buffer = new RemoteReplayBuffer(maxCount, maxAgeMillis, maxBytes);
+            if (lastPayload != null) {
+                buffer.add(lastPayload);
+            }
+            replayBuffer = buffer;
+        } else {
+            replayBuffer = null;
+        }
+        return this;
+    }
+
+    /**
+     * Sets how the observables created after this call handle the events their clients have not requested.
+     *
+     * @see RemoteEventController#setBackpressureStrategy(RemoteBackpressureStrategy)
+     */
+    public RemoteObservables<T> setBackpressureStrategy(RemoteBackpressureStrategy backpressureStrategy) {
+        this.backpressureStrategy = backpressureStrategy;
+        return this;
+    }
+
+    /**
+     * Delivers the events to the clients in parallel, so that a slow client does not hold back the others.
+     * Each client still receives the events in order, and has its own queue of events waiting to be delivered.
+     * <p>
+     * This applies to the observables already created and to the ones created after this call.
+     * Calling it again resizes the same pool of threads.
+     *
+     * @param threads             Maximum number of clients delivered to at the same time
+     * @param queueCapacity       Maximum number of events waiting to be delivered to a client
+     * @param overflowStrategy    What to do when the queue of a client is full, one of the strategies in {@link BackpressureOverflow}
+     * @see #getClientLag()
+     * @see RemoteEventController#setAsyncDispatch(int, BackpressureOverflow.Strategy, Executor)
+     */
+    public RemoteObservables<T> setParallelFanOut(int threads, int queueCapacity, BackpressureOverflow.Strategy overflowStrategy) {
+        ThreadPoolExecutor executor;
+        synchronized (this) {
+            executor = fanOutExecutor;
+            if (executor == null) {
+                executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                        new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                    private final AtomicInteger count = new AtomicInteger();
 
                     @Override
-                    public void onClosed() {
-                        remoteEventControllers.remove(eventController);
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, "RemoteObservablesFanOut-" + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
                     }
                 });
+                executor.allowCoreThreadTimeOut(true);
+            } else if (threads > executor.getMaximumPoolSize()) {
+                //the same pool is resized, so that the events already queued on it are still delivered in order
+                executor.setMaximumPoolSize(threads);
+                executor.setCorePoolSize(threads);
+            } else {
+                executor.setCorePoolSize(threads);
+                executor.setMaximumPoolSize(threads);
+            }
+            this.fanOutExecutor = executor;
+            this.fanOutQueueCapacity = queueCapacity;
+            this.fanOutOverflowStrategy = overflowStrategy;
+        }
+        for (RemoteEventController<T> controller : remoteEventControllers) {
+            controller.setAsyncDispatch(queueCapacity, overflowStrategy, executor);
+        }
+        return this;
     }
 
     /**
-     * Send the given data to all clients that created using {@link #newObservable()}
+     * Returns how far behind each of the subscribed clients is, to find the ones holding back the others.
+     * Only meaningful with {@link #setParallelFanOut(int, int, BackpressureOverflow.Strategy)}
+     */
+    public List<RemoteClientLag> getClientLag() {
+        List<RemoteClientLag> clientLag = new ArrayList<>();
+        for (RemoteEventController<T> controller : remoteEventControllers) {
+            controller.addClientLag(clientLag);
+        }
+        return clientLag;
+    }
+
+    /**
+     * Send the given data to all clients that created using {@link #newObservable()}.
+     * The data is encoded only once, and the same payload is sent to all the clients
      *
      * @param data data to send
      */
     public RemoteObservables<T> onNext(T data) {
-        lastData = data;
-        hasData = true;
-        for (RemoteEventController<T> controller : remoteEventControllers) {
-            controller.sendEvent(data);
+        RemoteEventPayload payload = new RemoteEventPayload(data, getDataType(data),
+                remoteEventControllers.size() > 1 || replayBuffer != null);
+        Iterator<RemoteEventController<T>> controllers;
+        synchronized (this) {
+            if (payload.getDataType() != RemoteDataType.UnKnown) {
+                payload.setSequence(++sequence);
+                lastPayload = payload;
+                if (replayBuffer != null) {
+                    replayBuffer.add(payload);
+                }
+            }
+            //the observables created from now on start after this event
+            controllers = remoteEventControllers.iterator();
+        }
+        while (controllers.hasNext()) {
+            controllers.next().sendEvent(data, payload);
         }
         return this;
     }
@@ -118,4 +380,11 @@ public final class RemoteObservables<T> {
         return this;
     }
 
+    /**
+     * Returns what type of data this is
+     */
+    private RemoteDataType getDataType(Object data) {
+        return RemoteDataCodec.findDataType(data);
+    }
+
 }
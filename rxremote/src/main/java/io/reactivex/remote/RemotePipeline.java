@@ -0,0 +1,105 @@
+package io.reactivex.remote;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.remote.internal.RemoteSubscriptionSpec;
+
+/**
+ * Operators applied at the service side to the events of a {@link RemoteObservable}, before they are sent to the client.
+ * The events these drop are then never encoded nor sent, unlike with the same operators applied to {@link RemoteObservable#getObservable()}.
+ * <p/>
+ *
+ * <pre><code>
+ *
+ *   remoteObservable.setPipeline(new RemotePipeline()
+ *       .distinctUntilChanged()
+ *       .sample(100, TimeUnit.MILLISECONDS)
+ *       .take(10));
+ *
+ * </code></pre>
+ * The operators are applied in the order they are added.
+ *
+ * @see RemoteObservable#setPipeline(RemotePipeline)
+ * @see RemoteObservable#getBufferedObservable(int)
+ */
+public final class RemotePipeline {
+
+    private int[] operators = new int[0];
+    private long[] operatorArgs = new long[0];
+
+    public RemotePipeline() {
+    }
+
+    /**
+     * Sends only the latest event of each period
+     *
+     * @see rx.Observable#sample(long, TimeUnit)
+     */
+    public RemotePipeline sample(long period, TimeUnit unit) {
+        return addOperator(RemoteSubscriptionSpec.OP_SAMPLE, Math.max(1, unit.toMillis(period)));
+    }
+
+    /**
+     * Sends only the first event of each window, starting from an event sent
+     *
+     * @see rx.Observable#throttleFirst(long, TimeUnit)
+     */
+    public RemotePipeline throttleFirst(long windowDuration, TimeUnit unit) {
+        return addOperator(RemoteSubscriptionSpec.OP_THROTTLE_FIRST, unit.toMillis(windowDuration));
+    }
+
+    /**
+     * Sends only the events that are not equal to the previous one
+     *
+     * @see rx.Observable#distinctUntilChanged()
+     */
+    public RemotePipeline distinctUntilChanged() {
+        return addOperator(RemoteSubscriptionSpec.OP_DISTINCT_UNTIL_CHANGED, 0);
+    }
+
+    /**
+     * Sends only the first count events, then completes
+     *
+     * @see rx.Observable#take(int)
+     */
+    public RemotePipeline take(int count) {
+        return addOperator(RemoteSubscriptionSpec.OP_TAKE, count);
+    }
+
+    /**
+     * Drops the first count events
+     *
+     * @see rx.Observable#skip(int)
+     */
+    public RemotePipeline skip(int count) {
+        return addOperator(RemoteSubscriptionSpec.OP_SKIP, count);
+    }
+
+    /**
+     * Returns a copy of this pipeline with one more operator
+     */
+    RemotePipeline with(int operator, long arg) {
+        RemotePipeline pipeline = new RemotePipeline();
+        pipeline.operators = operators.clone();
+        pipeline.operatorArgs = operatorArgs.clone();
+        return pipeline.addOperator(operator, arg);
+    }
+
+    /**
+     * Adds the operators to the spec sent to the service
+     */
+    void applyTo(RemoteSubscriptionSpec spec) {
+        for (int i = 0; i < operators.length; i++) {
+            spec.addOperator(operators[i], operatorArgs[i]);
+        }
+    }
+
+    private RemotePipeline addOperator(int operator, long arg) {
+        operators = Arrays.copyOf(operators, operators.length + 1);
+        operatorArgs = Arrays.copyOf(operatorArgs, operatorArgs.length + 1);
+        operators[operators.length - 1] = operator;
+        operatorArgs[operatorArgs.length - 1] = arg;
+        return this;
+    }
+}
@@ -0,0 +1,132 @@
+package io.reactivex.remote;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import java.util.List;
+
+import io.reactivex.remote.internal.RemoteEventData;
+import rx.Observable;
+
+/**
+ * The latest data of a set of {@link RemoteObservables} topics, taken at once and sent to the client
+ * in a single transaction, along with the subscription to all of them if asked for.
+ * <p>
+ * Create it at the service side using {@link RemoteObservables#snapshot(boolean, Object...)}, and pass this
+ * {@link Parcelable} through the remote service aidl or <a href=\"https://bit.ly/Remoter\">Remoter</a> interface.
+ * The topics are then referred to by their index in the order they were given.
+ *
+ * @see RemoteObservables
+ */
+public class RemoteTopicSnapshot implements Parcelable {
+
+    public static final Creator<RemoteTopicSnapshot> CREATOR = new Creator<RemoteTopicSnapshot>() {
+        @Override
+        public RemoteTopicSnapshot createFromParcel(Parcel in) {
+            return new RemoteTopicSnapshot(in);
+        }
+
+        @Override
+        public RemoteTopicSnapshot[] newArray(int size) {
+            return new RemoteTopicSnapshot[size];
+        }
+    };
+
+    private final RemoteEventData[] values;
+    private final RemoteObservableChannel channel;
+
+    /**
+     * Initialize at the service side
+     *
+     * @param values  The latest data of each topic, null for a topic with no data yet
+     * @param channel The channel carrying the updates of each topic as the stream of the same index, or null
+     */
+    RemoteTopicSnapshot(List<RemoteEventData> values, RemoteObservableChannel channel) {
+        this.values = values.toArray(new RemoteEventData[values.size()]);
+        this.channel = channel;
+    }
+
+    /**
+     * Internally used for unparcelling
+     */
+    private RemoteTopicSnapshot(Parcel in) {
+        values = new RemoteEventData[in.readInt()];
+        for (int i = 0; i < values.length; i++) {
+            if (in.readInt() != 0) {
+                RemoteEventData value = RemoteEventData.CREATOR.createFromParcel(in);
+                //a data that could not be read is taken as no data
+                values[i] = value.isDecoded() ? value : null;
+            }
+        }
+        channel = in.readInt() != 0 ? RemoteObservableChannel.CREATOR.createFromParcel(in) : null;
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeInt(values.length);
+        for (RemoteEventData value : values) {
+            if (value != null) {
+                dest.writeInt(1);
+                value.writeToParcel(dest, flags);
+            } else {
+                dest.writeInt(0);
+            }
+        }
+        if (channel != null) {
+            dest.writeInt(1);
+            channel.writeToParcel(dest, flags);
+        } else {
+            dest.writeInt(0);
+        }
+    }
+
+    /**
+     * Returns the number of topics
+     */
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * Returns whether the topic at the given index had any data when the snapshot was taken
+     */
+    public boolean hasData(int index) {
+        return values[index] != null;
+    }
+
+    /**
+     * Returns the latest data of the topic at the given index when the snapshot was taken, or null if it had none
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getData(int index) {
+        return values[index] != null ? (T) values[index].getData() : null;
+    }
+
+    /**
+     * Returns an {@link Observable} of the data sent to the topic at the given index.
+     * As with {@link RemoteObservable}, it starts with the latest data, which is the one in the snapshot
+     * unless the topic was updated meanwhile.
+     *
+     * @throws IllegalStateException if the snapshot was taken without subscribing
+     */
+    public <T> Observable<T> getObservable(int index) {
+        if (channel == null) {
+            throw new IllegalStateException("Snapshot taken without subscribing to the topics");
+        }
+        return channel.getObservable(index);
+    }
+
+    /**
+     * Closes the subscription to the topics, if any
+     */
+    public void close() {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+}
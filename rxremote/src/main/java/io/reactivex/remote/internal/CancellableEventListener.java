@@ -0,0 +1,15 @@
+package io.reactivex.remote.internal;
+
+
+/**
+ * @hide Used internally by {@link io.reactivex.remote.RemoteObservable} to drop the events still queued
+ * for a listener once its subscription is cancelled
+ */
+public interface CancellableEventListener extends RemoteEventListener {
+
+    /**
+     * Returns whether the subscription of this listener is cancelled, so that its incoming events are discarded
+     */
+    boolean isCancelled();
+
+}
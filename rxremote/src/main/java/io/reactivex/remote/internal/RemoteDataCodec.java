@@ -0,0 +1,663 @@
+package io.reactivex.remote.internal;
+
+import android.os.Build;
+import android.os.Bundle;
+import android.os.IBinder;
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.support.annotation.RequiresApi;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.reactivex.remote.RemoteCodec;
+
+/**
+ * @hide
+ * Finds the {@link RemoteDataType} of the data, and reads/writes it in the compact format.
+ * <p>
+ * The compact format is a type tag followed by the raw value, written directly to a {@link Parcel}
+ * <p>
+ * The type of each class, and the generated classes and constructors used to send it, are looked up once
+ * and cached for the whole process, including the classes that can not be sent.
+ * The generated {@link RemoteCodec}s, when registered, are used instead of the reflective lookups
+ */
+public final class RemoteDataCodec {
+
+    private static final RemoteDataType[] DATA_TYPES = RemoteDataType.values();
+    private static final ConcurrentHashMap<Class, ClassCodec> CLASS_CODECS = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<Class, Method> PARCELER_UNWRAPPERS = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, Constructor> REMOTER_PROXIES = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<Class, RemoteCodec> PARCELER_CODECS = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, RemoteCodec> REMOTER_CODECS = new ConcurrentHashMap<>();
+
+    private RemoteDataCodec() {
+    }
+
+    /**
+     * Finds the type of data
+     */
+    public static RemoteDataType findDataType(Object data) {
+        if (data == null) {
+            return RemoteDataType.UnKnown;
+        }
+        return getClassCodec(data.getClass()).dataType;
+    }
+
+    /**
+     * Registers the generated codec of a @Parcel class
+     */
+    public static void registerParceler(Class dataClass, Class wrapperClass, RemoteCodec codec) {
+        PARCELER_CODECS.put(wrapperClass, codec);
+        CLASS_CODECS.put(dataClass, new ClassCodec(RemoteDataType.Parceler, dataClass, null, null, null, codec));
+    }
+
+    /**
+     * Registers the generated codec of a @Remoter interface.
+     * Used for the classes implementing it that are not already resolved
+     */
+    public static void registerRemoter(Class remoterInterface, RemoteCodec codec) {
+        REMOTER_CODECS.put(remoterInterface.getName(), codec);
+    }
+
+    /**
+     * Returns the cached codec of the class, resolving it on first use
+     */
+    private static ClassCodec getClassCodec(Class dataClass) {
+        ClassCodec codec = CLASS_CODECS.get(dataClass);
+        if (codec == null) {
+            codec = resolveClassCodec(dataClass);
+            ClassCodec existing = CLASS_CODECS.putIfAbsent(dataClass, codec);
+            if (existing != null) {
+                codec = existing;
+            }
+        }
+        return codec;
+    }
+
+    /**
+     * Finds the type of the class, and the generated classes used to send it
+     */
+    private static ClassCodec resolveClassCodec(Class dataClass) {
+        if (dataClass == Byte.class) {
+            return new ClassCodec(RemoteDataType.Byte);
+        }
+        if (dataClass == Short.class) {
+            return new ClassCodec(RemoteDataType.Short);
+        }
+        if (dataClass == Integer.class) {
+            return new ClassCodec(RemoteDataType.Integer);
+        }
+        if (dataClass == Long.class) {
+            return new ClassCodec(RemoteDataType.Long);
+        }
+        if (dataClass == Float.class) {
+            return new ClassCodec(RemoteDataType.Float);
+        }
+        if (dataClass == Double.class) {
+            return new ClassCodec(RemoteDataType.Double);
+        }
+        if (dataClass == String.class) {
+            return new ClassCodec(RemoteDataType.String);
+        }
+        if (dataClass == Character.class) {
+            return new ClassCodec(RemoteDataType.Char);
+        }
+        if (dataClass == Boolean.class) {
+            return new ClassCodec(RemoteDataType.Boolean);
+        }
+        if (dataClass == int[].class) {
+            return new ClassCodec(RemoteDataType.IntArray);
+        }
+        if (dataClass == long[].class) {
+            return new ClassCodec(RemoteDataType.LongArray);
+        }
+        if (dataClass == float[].class) {
+            return new ClassCodec(RemoteDataType.FloatArray);
+        }
+        if (dataClass == double[].class) {
+            return new ClassCodec(RemoteDataType.DoubleArray);
+        }
+        if (dataClass == byte[].class) {
+            return new ClassCodec(RemoteDataType.ByteArray);
+        }
+        if (List.class.isAssignableFrom(dataClass)) {
+            return new ClassCodec(RemoteDataType.List);
+        }
+        if (Parcelable.class.isAssignableFrom(dataClass)) {
+            return new ClassCodec(RemoteDataType.Parcelable);
+        }
+        try {
+            Class parcelerClass = findParcelerClass(dataClass);
+            if (parcelerClass != null) {
+                Class parcelClass = Class.forName(parcelerClass.getName() + "$$Parcelable");
+                return new ClassCodec(RemoteDataType.Parceler, parcelerClass, parcelClass.getConstructor(parcelerClass), null, null, null);
+            }
+            Class remoterInterfaceClass = findRemoterInterface(dataClass);
+            if (remoterInterfaceClass != null) {
+                RemoteCodec generated = REMOTER_CODECS.get(remoterInterfaceClass.getName());
+                if (generated != null) {
+                    return new ClassCodec(RemoteDataType.Remoter, null, null, remoterInterfaceClass, null, generated);
+                }
+                Class remoterStubClass = Class.forName(remoterInterfaceClass.getName() + "_Stub");
+                return new ClassCodec(RemoteDataType.Remoter, null, null, remoterInterfaceClass, remoterStubClass.getConstructor(remoterInterfaceClass), null);
+            }
+        } catch (Exception ignored) {
+        }
+        return new ClassCodec(RemoteDataType.UnKnown);
+    }
+
+    /**
+     * Writes the type tag followed by the data.
+     * A list of numbers of the same type is written as a single primitive array
+     */
+    public static void writeData(Parcel dest, Object data, RemoteDataType dataType) throws Exception {
+        if (dataType == RemoteDataType.List) {
+            RemoteDataType arrayType = findPackedArrayType((List) data);
+            if (arrayType != null) {
+                dest.writeInt(RemoteDataType.PackedList.ordinal());
+                dest.writeInt(arrayType.ordinal());
+                writeData(dest, packList((List) data, arrayType), arrayType);
+                return;
+            }
+        }
+        dest.writeInt(dataType.ordinal());
+        switch (dataType) {
+            case List:
+                List listData = (List) data;
+                int dataSize = listData != null ? listData.size() : 0;
+                dest.writeInt(dataSize);
+                for (int i = 0; i < dataSize; i++) {
+                    Object item = listData.get(i);
+                    //looked up per item, as the list may hold subclasses of different types
+                    writeData(dest, item, findDataType(item));
+                }
+                break;
+            case Parcelable:
+                dest.writeParcelable((Parcelable) data, 0);
+                break;
+            case Parceler:
+                dest.writeParcelable(wrapParceler(data), 0);
+                break;
+            case Remoter:
+                dest.writeString(getRemoterInterface(data).getName());
+                dest.writeStrongBinder(wrapRemoter(data));
+                break;
+            case Byte:
+                dest.writeByte((Byte) data);
+                break;
+            case Short:
+                dest.writeInt((Short) data);
+                break;
+            case Integer:
+                dest.writeInt((Integer) data);
+                break;
+            case Float:
+                dest.writeFloat((Float) data);
+                break;
+            case Double:
+                dest.writeDouble((Double) data);
+                break;
+            case String:
+                dest.writeString((String) data);
+                break;
+            case Char:
+                dest.writeInt((Character) data);
+                break;
+            case Long:
+                dest.writeLong((Long) data);
+                break;
+            case Boolean:
+                dest.writeInt(((Boolean) data) ? 1 : 0);
+                break;
+            case IntArray:
+                dest.writeIntArray((int[]) data);
+                break;
+            case LongArray:
+                dest.writeLongArray((long[]) data);
+                break;
+            case FloatArray:
+                dest.writeFloatArray((float[]) data);
+                break;
+            case DoubleArray:
+                dest.writeDoubleArray((double[]) data);
+                break;
+            case ByteArray:
+                dest.writeByteArray((byte[]) data);
+                break;
+            case UnKnown:
+                break;
+        }
+    }
+
+    /**
+     * Returns whether the type can only be sent in the compact format, as the clients reading
+     * the {@link Bundle} format may not know it
+     */
+    public static boolean isCompactOnly(RemoteDataType dataType) {
+        switch (dataType) {
+            case Offloaded:
+            case IntArray:
+            case LongArray:
+            case FloatArray:
+            case DoubleArray:
+            case ByteArray:
+            case PackedList:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Writes the data to the {@link Bundle} with the given key prefix.
+     * The Bundle format is left as it was, an array or a packed list is not written to it, see {@link #isCompactOnly(RemoteDataType)}
+     */
+    public static void writeBundle(Bundle remoteData, Object data, RemoteDataType dataType, String keyPrefix) throws Exception {
+        if (isCompactOnly(dataType)) {
+            //such as an array within a list, read as null as before
+            dataType = RemoteDataType.UnKnown;
+        }
+        remoteData.putString(RemoteEventManager.REMOTE_DATA_TYPE + keyPrefix, dataType.name());
+        switch (dataType) {
+            case List:
+                List listData = (List) data;
+                int dataSize = listData != null ? listData.size() : 0;
+                remoteData.putInt(RemoteEventManager.REMOTE_DATA_LIST_SIZE + keyPrefix, dataSize);
+                for (int i = 0; i < dataSize; i++) {
+                    Object item = listData.get(i);
+                    writeBundle(remoteData, item, findDataType(item), keyPrefix + i);
+                }
+                break;
+
+            case Parcelable:
+                remoteData.putParcelable(RemoteEventManager.REMOTE_DATA_KEY + keyPrefix, (Parcelable) data);
+                break;
+            case Parceler:
+                remoteData.putParcelable(RemoteEventManager.REMOTE_DATA_KEY + keyPrefix, wrapParceler(data));
+                break;
+            case Remoter:
+                remoteData.putString(RemoteEventManager.REMOTE_DATA_EXTRA + keyPrefix, getRemoterInterface(data).getName());
+                remoteData.putBinder(RemoteEventManager.REMOTE_DATA_KEY + keyPrefix, wrapRemoter(data));
+                break;
+            case Byte:
+                remoteData.putByte(RemoteEventManager.REMOTE_DATA_KEY + keyPrefix, (Byte) data);
+                break;
+            case Short:
+                remoteData.putShort(RemoteEventManager.REMOTE_DATA_KEY + keyPrefix, (Short) data);
+                break;
+            case Integer:
+                remoteData.putInt(RemoteEventManager.REMOTE_DATA_KEY + keyPrefix, (Integer) data);
+                break;
+            case Float:
+                remoteData.putFloat(RemoteEventManager.REMOTE_DATA_KEY + keyPrefix, (Float) data);
+                break;
+            case Double:
+                remoteData.putDouble(RemoteEventManager.REMOTE_DATA_KEY + keyPrefix, (Double) data);
+                break;
+            case String:
+                remoteData.putString(RemoteEventManager.REMOTE_DATA_KEY + keyPrefix, (String) data);
+                break;
+            case Char:
+                remoteData.putChar(RemoteEventManager.REMOTE_DATA_KEY + keyPrefix, (Character) data);
+                break;
+            case Long:
+                remoteData.putLong(RemoteEventManager.REMOTE_DATA_KEY + keyPrefix, (Long) data);
+                break;
+            case Boolean:
+                remoteData.putInt(RemoteEventManager.REMOTE_DATA_KEY + keyPrefix, ((Boolean) data).booleanValue() ? 1 : 0);
+                break;
+            case UnKnown:
+                break;
+        }
+    }
+
+    /**
+     * Reads the type tag written by {@link #writeData(Parcel, Object, RemoteDataType)}
+     */
+    public static RemoteDataType readDataType(Parcel in) {
+        int tag = in.readInt();
+        return tag >= 0 && tag < DATA_TYPES.length ? DATA_TYPES[tag] : RemoteDataType.UnKnown;
+    }
+
+    /**
+     * Reads the data of the given type written by {@link #writeData(Parcel, Object, RemoteDataType)}
+     */
+    @SuppressWarnings("unchecked")
+    public static Object readData(Parcel in, RemoteDataType dataType, ClassLoader classLoader) throws Exception {
+        switch (dataType) {
+            case List:
+                int size = in.readInt();
+                List list = new ArrayList(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readData(in, readDataType(in), classLoader));
+                }
+                return list;
+            case Parcelable:
+                return in.readParcelable(classLoader);
+            case Parceler:
+                return unwrapParceler(in.readParcelable(classLoader));
+            case Remoter:
+                String remoterInterface = in.readString();
+                return createRemoterProxy(remoterInterface, in.readStrongBinder());
+            case Byte:
+                return in.readByte();
+            case Short:
+                return (short) in.readInt();
+            case Integer:
+                return in.readInt();
+            case Float:
+                return in.readFloat();
+            case Double:
+                return in.readDouble();
+            case String:
+                return in.readString();
+            case Char:
+                return (char) in.readInt();
+            case Long:
+                return in.readLong();
+            case Boolean:
+                return in.readInt() == 1;
+            case Offloaded:
+                if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O_MR1) {
+                    throw new IllegalStateException("Event offloaded to shared memory, which needs API level 27");
+                }
+                return readOffloaded(in, classLoader);
+            case IntArray:
+                return in.createIntArray();
+            case LongArray:
+                return in.createLongArray();
+            case FloatArray:
+                return in.createFloatArray();
+            case DoubleArray:
+                return in.createDoubleArray();
+            case ByteArray:
+                return in.createByteArray();
+            case PackedList:
+                RemoteDataType arrayType = readDataType(in);
+                return unpackList(readData(in, arrayType, classLoader), arrayType);
+        }
+        return null;
+    }
+
+    /**
+     * Returns the primitive array type the list can be packed in, or null if it holds items of different or other types
+     */
+    private static RemoteDataType findPackedArrayType(List listData) {
+        if (listData == null || listData.isEmpty() || !(listData instanceof RandomAccess)) {
+            return null;
+        }
+        Object first = listData.get(0);
+        if (first == null) {
+            return null;
+        }
+        Class itemClass = first.getClass();
+        RemoteDataType arrayType;
+        if (itemClass == Integer.class) {
+            arrayType = RemoteDataType.IntArray;
+        } else if (itemClass == Long.class) {
+            arrayType = RemoteDataType.LongArray;
+        } else if (itemClass == Float.class) {
+            arrayType = RemoteDataType.FloatArray;
+        } else if (itemClass == Double.class) {
+            arrayType = RemoteDataType.DoubleArray;
+        } else if (itemClass == Byte.class) {
+            arrayType = RemoteDataType.ByteArray;
+        } else {
+            return null;
+        }
+        for (int i = 1, size = listData.size(); i < size; i++) {
+            Object item = listData.get(i);
+            if (item == null || item.getClass() != itemClass) {
+                return null;
+            }
+        }
+        return arrayType;
+    }
+
+    /**
+     * Copies the numbers of the list into a primitive array of the given type
+     */
+    private static Object packList(List listData, RemoteDataType arrayType) {
+        int size = listData.size();
+        switch (arrayType) {
+            case IntArray:
+                int[] ints = new int[size];
+                for (int i = 0; i < size; i++) {
+                    ints[i] = (Integer) listData.get(i);
+                }
+                return ints;
+            case LongArray:
+                long[] longs = new long[size];
+                for (int i = 0; i < size; i++) {
+                    longs[i] = (Long) listData.get(i);
+                }
+                return longs;
+            case FloatArray:
+                float[] floats = new float[size];
+                for (int i = 0; i < size; i++) {
+                    floats[i] = (Float) listData.get(i);
+                }
+                return floats;
+            case DoubleArray:
+                double[] doubles = new double[size];
+                for (int i = 0; i < size; i++) {
+                    doubles[i] = (Double) listData.get(i);
+                }
+                return doubles;
+            default:
+                byte[] bytes = new byte[size];
+                for (int i = 0; i < size; i++) {
+                    bytes[i] = (Byte) listData.get(i);
+                }
+                return bytes;
+        }
+    }
+
+    /**
+     * Returns the numbers of the primitive array as a list
+     */
+    @SuppressWarnings("unchecked")
+    public static List unpackList(Object array, RemoteDataType arrayType) {
+        if (array == null) {
+            return new ArrayList();
+        }
+        List list;
+        switch (arrayType) {
+            case IntArray:
+                int[] ints = (int[]) array;
+                list = new ArrayList(ints.length);
+                for (int value : ints) {
+                    list.add(value);
+                }
+                return list;
+            case LongArray:
+                long[] longs = (long[]) array;
+                list = new ArrayList(longs.length);
+                for (long value : longs) {
+                    list.add(value);
+                }
+                return list;
+            case FloatArray:
+                float[] floats = (float[]) array;
+                list = new ArrayList(floats.length);
+                for (float value : floats) {
+                    list.add(value);
+                }
+                return list;
+            case DoubleArray:
+                double[] doubles = (double[]) array;
+                list = new ArrayList(doubles.length);
+                for (double value : doubles) {
+                    list.add(value);
+                }
+                return list;
+            default:
+                byte[] bytes = (byte[]) array;
+                list = new ArrayList(bytes.length);
+                for (byte value : bytes) {
+                    list.add(value);
+                }
+                return list;
+        }
+    }
+
+    /**
+     * Reads the event written to the shared memory by {@link RemoteEventData#offload(RemoteEventData)}
+     */
+    @RequiresApi(Build.VERSION_CODES.O_MR1)
+    private static Object readOffloaded(Parcel in, ClassLoader classLoader) throws Exception {
+        byte[] marshalled = RemoteSharedMemory.readAndClose(RemoteSharedMemory.readFromParcel(in));
+        Parcel parcel = Parcel.obtain();
+        try {
+            parcel.unmarshall(marshalled, 0, marshalled.length);
+            parcel.setDataPosition(0);
+            return readData(parcel, readDataType(parcel), classLoader);
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    /**
+     * Wraps the @Parcel data in its generated {@link Parcelable}
+     */
+    @SuppressWarnings("unchecked")
+    public static Parcelable wrapParceler(Object data) throws Exception {
+        ClassCodec codec = getClassCodec(data.getClass());
+        if (codec.generated != null) {
+            return (Parcelable) codec.generated.wrap(data);
+        }
+        if (codec.parcelerWrapper != null) {
+            return (Parcelable) codec.parcelerWrapper.newInstance(data);
+        }
+        return null;
+    }
+
+    /**
+     * Returns the @Parcel data wrapped in the given generated {@link Parcelable}
+     */
+    public static Object unwrapParceler(Object parcelerObject) throws Exception {
+        if (parcelerObject == null) {
+            return null;
+        }
+        Class wrapperClass = parcelerObject.getClass();
+        RemoteCodec generated = PARCELER_CODECS.get(wrapperClass);
+        if (generated != null) {
+            return generated.unwrap(parcelerObject);
+        }
+        Method getParcel = PARCELER_UNWRAPPERS.get(wrapperClass);
+        if (getParcel == null) {
+            getParcel = wrapperClass.getMethod("getParcel", (Class[]) null);
+            PARCELER_UNWRAPPERS.put(wrapperClass, getParcel);
+        }
+        return getParcel.invoke(parcelerObject);
+    }
+
+    /**
+     * Wraps the @Remoter data in its generated stub
+     */
+    @SuppressWarnings("unchecked")
+    public static IBinder wrapRemoter(Object data) throws Exception {
+        ClassCodec codec = getClassCodec(data.getClass());
+        if (codec.generated != null) {
+            return (IBinder) codec.generated.wrap(data);
+        }
+        return (IBinder) codec.remoterStub.newInstance(data);
+    }
+
+    /**
+     * Creates the generated proxy of the given @Remoter interface
+     */
+    public static Object createRemoterProxy(String remoterInterface, IBinder binder) throws Exception {
+        RemoteCodec generated = REMOTER_CODECS.get(remoterInterface);
+        if (generated != null) {
+            return generated.unwrap(binder);
+        }
+        Constructor constructor = REMOTER_PROXIES.get(remoterInterface);
+        if (constructor == null) {
+            constructor = Class.forName(remoterInterface + "_Proxy").getConstructor(IBinder.class);
+            REMOTER_PROXIES.put(remoterInterface, constructor);
+        }
+        return constructor.newInstance(binder);
+    }
+
+    /**
+     * Finds the parceler class type
+     */
+    public static Class getParcelerClass(Object object) {
+        return getClassCodec(object.getClass()).parcelerClass;
+    }
+
+    /**
+     * Returns the remoter interface if it is of that type
+     */
+    public static Class getRemoterInterface(Object object) {
+        return getClassCodec(object.getClass()).remoterInterface;
+    }
+
+    /**
+     * Finds the class in the hierarchy that has a generated parceler
+     */
+    private static Class findParcelerClass(Class objClass) {
+        while (objClass != null) {
+            try {
+                Class.forName(objClass.getName() + "$$Parcelable");
+                return objClass;
+            } catch (ClassNotFoundException ignored) {
+                objClass = objClass.getSuperclass();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds the implemented interface that has a generated remoter stub
+     */
+    private static Class findRemoterInterface(Class objClass) {
+        Class remoterClass = null;
+        if (objClass != null) {
+            for (Class implementedInterface : objClass.getInterfaces()) {
+                try {
+                    Class.forName(implementedInterface.getName() + "_Stub");
+                    remoterClass = implementedInterface;
+                    break;
+                } catch (ClassNotFoundException ignored) {
+                }
+            }
+            if (remoterClass == null) {
+                return findRemoterInterface(objClass.getSuperclass());
+            }
+        }
+        return remoterClass;
+    }
+
+    /**
+     * The type of a class, with the generated classes or codec used to send it
+     */
+    private static final class ClassCodec {
+        final RemoteDataType dataType;
+        final Class parcelerClass;
+        final Constructor parcelerWrapper;
+        final Class remoterInterface;
+        final Constructor remoterStub;
+        final RemoteCodec generated;
+
+        ClassCodec(RemoteDataType dataType) {
+            this(dataType, null, null, null, null, null);
+        }
+
+        ClassCodec(RemoteDataType dataType, Class parcelerClass, Constructor parcelerWrapper,
+                   Class remoterInterface, Constructor remoterStub, RemoteCodec generated) {
+            this.dataType = dataType;
+            this.parcelerClass = parcelerClass;
+            this.parcelerWrapper = parcelerWrapper;
+            this.remoterInterface = remoterInterface;
+            this.remoterStub = remoterStub;
+            this.generated = generated;
+        }
+    }
+}
@@ -18,5 +18,19 @@ public enum RemoteDataType {
     Short,
     Boolean,
     List,
-    UnKnown;
+    UnKnown,
+    //types added after UnKnown, keeping the existing compact tags stable for older peers
+    /**
+     * An event too large for a transaction, moved to shared memory
+     */
+    Offloaded,
+    IntArray,
+    LongArray,
+    FloatArray,
+    DoubleArray,
+    ByteArray,
+    /**
+     * A list of numbers of the same type, sent as a single primitive array in the compact format only
+     */
+    PackedList;
 }
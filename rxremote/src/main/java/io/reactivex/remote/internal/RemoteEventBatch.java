@@ -0,0 +1,65 @@
+package io.reactivex.remote.internal;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @hide
+ * A batch of events in the compact format, delivered in a single transaction
+ *
+ * @see RemoteEventData
+ */
+public final class RemoteEventBatch implements Parcelable {
+
+    public static final Creator<RemoteEventBatch> CREATOR = new Creator<RemoteEventBatch>() {
+        @Override
+        public RemoteEventBatch createFromParcel(Parcel in) {
+            return new RemoteEventBatch(in);
+        }
+
+        @Override
+        public RemoteEventBatch[] newArray(int size) {
+            return new RemoteEventBatch[size];
+        }
+    };
+
+    private final List<RemoteEventData> events;
+
+    /**
+     * Creates a batch of the given events
+     */
+    public RemoteEventBatch(List<RemoteEventData> events) {
+        this.events = events;
+    }
+
+    private RemoteEventBatch(Parcel in) {
+        int size = in.readInt();
+        events = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            events.add(RemoteEventData.CREATOR.createFromParcel(in));
+        }
+    }
+
+    /**
+     * Returns the events in the order they were sent
+     */
+    public List<RemoteEventData> getEvents() {
+        return events;
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeInt(events.size());
+        for (RemoteEventData event : events) {
+            event.writeToParcel(dest, flags);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package io.reactivex.remote.internal;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import java.util.List;
+
+/**
+ * @hide
+ * A part of a large list event, delivered in its own transaction.
+ * The chunks of a list share its sequence id, and are delivered in order
+ */
+public final class RemoteEventChunk implements Parcelable {
+
+    public static final Creator<RemoteEventChunk> CREATOR = new Creator<RemoteEventChunk>() {
+        @Override
+        public RemoteEventChunk createFromParcel(Parcel in) {
+            return new RemoteEventChunk(in);
+        }
+
+        @Override
+        public RemoteEventChunk[] newArray(int size) {
+            return new RemoteEventChunk[size];
+        }
+    };
+
+    private final long sequenceId;
+    private final int offset;
+    private final int totalSize;
+    private final RemoteEventData items;
+
+    /**
+     * Creates a chunk of the list with the given sequence id
+     *
+     * @param offset    Position of the first item of this chunk in the list
+     * @param totalSize Size of the whole list
+     * @param items     The items of this chunk, as a list event
+     */
+    public RemoteEventChunk(long sequenceId, int offset, int totalSize, RemoteEventData items) {
+        this.sequenceId = sequenceId;
+        this.offset = offset;
+        this.totalSize = totalSize;
+        this.items = items;
+    }
+
+    private RemoteEventChunk(Parcel in) {
+        sequenceId = in.readLong();
+        offset = in.readInt();
+        totalSize = in.readInt();
+        items = RemoteEventData.CREATOR.createFromParcel(in);
+    }
+
+    public long getSequenceId() {
+        return sequenceId;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getTotalSize() {
+        return totalSize;
+    }
+
+    /**
+     * Returns the items of this chunk, or null if they could not be read
+     */
+    public List getItems() {
+        return items.isDecoded() ? (List) items.getData() : null;
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeLong(sequenceId);
+        dest.writeInt(offset);
+        dest.writeInt(totalSize);
+        items.writeToParcel(dest, flags);
+    }
+}
@@ -0,0 +1,182 @@
+package io.reactivex.remote.internal;
+
+import android.os.Build;
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.support.annotation.RequiresApi;
+import android.util.Log;
+
+/**
+ * @hide
+ * An event in the compact format, written directly to the transaction {@link Parcel}
+ *
+ * @see RemoteDataCodec
+ */
+public final class RemoteEventData implements Parcelable {
+
+    public static final Creator<RemoteEventData> CREATOR = new Creator<RemoteEventData>() {
+        @Override
+        public RemoteEventData createFromParcel(Parcel in) {
+            return new RemoteEventData(in);
+        }
+
+        @Override
+        public RemoteEventData[] newArray(int size) {
+            return new RemoteEventData[size];
+        }
+    };
+
+    private static final String TAG = "RemoteEventData";
+
+    private final Object data;
+    private final RemoteDataType dataType;
+    //the event encoded once, or null if it is written from the data to each transaction
+    private final byte[] encoded;
+    private final int encodedSize;
+    //the shared memory the event is offloaded to, written as is to each transaction
+    private final Parcelable offloaded;
+    private final boolean decoded;
+
+    /**
+     * Creates an event with the given data and its type
+     */
+    public RemoteEventData(Object data, RemoteDataType dataType) {
+        this(data, dataType, null, -1, null);
+    }
+
+    private RemoteEventData(Object data, RemoteDataType dataType, byte[] encoded, int encodedSize, Parcelable offloaded) {
+        this.data = data;
+        this.dataType = dataType;
+        this.encoded = encoded;
+        this.encodedSize = encodedSize;
+        this.offloaded = offloaded;
+        this.decoded = true;
+    }
+
+    private RemoteEventData(Parcel in) {
+        encoded = null;
+        encodedSize = -1;
+        offloaded = null;
+        //the size of the event, so that the rest of the transaction can be read even if this event can not
+        int size = in.readInt();
+        int end = in.dataPosition() + size;
+        RemoteDataType type = null;
+        Object value = null;
+        boolean read = false;
+        try {
+            type = RemoteDataCodec.readDataType(in);
+            value = RemoteDataCodec.readData(in, type, RemoteEventData.class.getClassLoader());
+            read = true;
+        } catch (Exception e) {
+            Log.w(TAG, "Unable to read event, dropping it", e);
+        }
+        in.setDataPosition(end);
+        dataType = type;
+        data = value;
+        decoded = read;
+    }
+
+    /**
+     * Creates an event that is encoded right away, and only copied to each transaction it is written to.
+     * An event holding binders or file descriptors can not be kept encoded, and is written from the data
+     * each time instead, only its size is known then
+     */
+    public static RemoteEventData encode(Object data, RemoteDataType dataType) throws Exception {
+        Parcel parcel = Parcel.obtain();
+        try {
+            RemoteDataCodec.writeData(parcel, data, dataType);
+            byte[] encoded = null;
+            try {
+                encoded = parcel.marshall();
+            } catch (RuntimeException ex) {
+                //such as when it holds a binder
+            }
+            return new RemoteEventData(data, dataType, encoded, parcel.dataSize(), null);
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    /**
+     * Creates an event that carries the given encoded event in shared memory, to be sent when it is too large
+     * for a transaction. Only the file descriptor of the shared memory is written to the transactions.
+     * <p>
+     * The shared memory is held by the returned event alone, and closed along with it once it is no longer
+     * referenced, as it may still be sent to clients subscribing later.
+     *
+     * @see #encode(Object, RemoteDataType)
+     */
+    @RequiresApi(Build.VERSION_CODES.O_MR1)
+    public static RemoteEventData offload(RemoteEventData encodedEvent) throws Exception {
+        byte[] marshalled = encodedEvent.encoded;
+        if (marshalled == null) {
+            throw new IllegalArgumentException("Event of type " + encodedEvent.dataType + " can not be marshalled");
+        }
+        return new RemoteEventData(encodedEvent.data, encodedEvent.dataType, null, -1, RemoteSharedMemory.create(TAG, marshalled));
+    }
+
+    /**
+     * Returns the size of the encoded event, or -1 if it is not encoded yet
+     */
+    public int getEncodedSize() {
+        return encodedSize;
+    }
+
+    /**
+     * Returns the data
+     */
+    public Object getData() {
+        return data;
+    }
+
+    /**
+     * Returns the type of the data
+     */
+    public RemoteDataType getDataType() {
+        return dataType;
+    }
+
+    /**
+     * Returns whether the data could be read. An event that could not is dropped by the client
+     */
+    public boolean isDecoded() {
+        return decoded;
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        if (encoded != null) {
+            dest.writeInt(encoded.length);
+            Parcel parcel = Parcel.obtain();
+            try {
+                parcel.unmarshall(encoded, 0, encoded.length);
+                dest.appendFrom(parcel, 0, encoded.length);
+            } finally {
+                parcel.recycle();
+            }
+            return;
+        }
+        int sizePosition = dest.dataPosition();
+        dest.writeInt(0);
+        if (offloaded != null) {
+            //the transaction gets its own copy of the file descriptor
+            dest.writeInt(RemoteDataType.Offloaded.ordinal());
+            dest.writeParcelable(offloaded, 0);
+        } else {
+            try {
+                RemoteDataCodec.writeData(dest, data, dataType);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+        int end = dest.dataPosition();
+        dest.setDataPosition(sizePosition);
+        dest.writeInt(end - sizePosition - 4);
+        dest.setDataPosition(end);
+    }
+}
@@ -29,4 +29,60 @@ public interface RemoteEventListener {
      */
     @Oneway
     void onError(Exception exception);
+
+    /**
+     * Called when remote service sends a data in the compact format
+     */
+    @Oneway
+    void onRemoteData(RemoteEventData remoteData);
+
+    /**
+     * Called when remote service sends a batch of data in the compact format
+     */
+    @Oneway
+    void onRemoteDataBatch(RemoteEventBatch remoteDataBatch);
+
+    /**
+     * Called when remote service offers to deliver the data through shared memory.
+     * The listener accepts it with {@link RemoteEventManager#attachRing(RemoteEventListener)}
+     */
+    @Oneway
+    void onRemoteRingSetup(RemoteRingSetup ringSetup);
+
+    /**
+     * Called when remote service has written data to the shared memory while the listener is parked
+     */
+    @Oneway
+    void onRemoteDoorbell();
+
+    /**
+     * Called when remote service sends a part of a large list
+     */
+    @Oneway
+    void onRemoteDataChunk(RemoteEventChunk remoteDataChunk);
+
+    /**
+     * Called when remote service sends numeric values packed in a primitive array
+     */
+    @Oneway
+    void onRemotePrimitiveBatch(RemotePrimitiveBatch remotePrimitiveBatch);
+
+    /**
+     * Called when remote service tells the sequence number of the next data, at subscription and after
+     * any data not sent to this listener
+     *
+     * @param epoch    Identifies the numbering, which starts over when the source is created again
+     * @param sequence Sequence number of the next data
+     * @param missed   Number of data lost since the sequence the listener resumed from, -1 if unknown, or 0
+     */
+    @Oneway
+    void onRemoteSequence(long epoch, long sequence, long missed);
+
+    /**
+     * Called when remote service sends the events of the streams of a channel this listener is subscribed to
+     *
+     * @see RemoteEventManager#subscribe(RemoteEventListener, int)
+     */
+    @Oneway
+    void onRemoteStreamBatch(RemoteStreamBatch remoteStreamBatch);
 }
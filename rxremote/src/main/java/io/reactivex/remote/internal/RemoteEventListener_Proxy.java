@@ -33,8 +33,27 @@ public class RemoteEventListener_Proxy implements RemoteEventListener {
 
     private static final int TRANSACTION__getStubID = IBinder.FIRST_CALL_TRANSACTION + 3;
 
+    // Transactions added after _getStubID, keeping the existing codes stable for older peers
+    private static final int TRANSACTION_onRemoteData_4 = IBinder.FIRST_CALL_TRANSACTION + 4;
+
+    private static final int TRANSACTION_onRemoteDataBatch_5 = IBinder.FIRST_CALL_TRANSACTION + 5;
+
+    private static final int TRANSACTION_onRemoteRingSetup_6 = IBinder.FIRST_CALL_TRANSACTION + 6;
+
+    private static final int TRANSACTION_onRemoteDoorbell_7 = IBinder.FIRST_CALL_TRANSACTION + 7;
+
+    private static final int TRANSACTION_onRemoteDataChunk_8 = IBinder.FIRST_CALL_TRANSACTION + 8;
+
+    private static final int TRANSACTION_onRemotePrimitiveBatch_9 = IBinder.FIRST_CALL_TRANSACTION + 9;
+
+    private static final int TRANSACTION_onRemoteSequence_10 = IBinder.FIRST_CALL_TRANSACTION + 10;
+
+    private static final int TRANSACTION_onRemoteStreamBatch_11 = IBinder.FIRST_CALL_TRANSACTION + 11;
+
     private IBinder mRemote;
 
+    private final IBinder _binder;
+
     private final int _binderID;
 
     private final int _pid;
@@ -48,7 +67,9 @@ public class RemoteEventListener_Proxy implements RemoteEventListener {
      */
     public RemoteEventListener_Proxy(IBinder binder) {
         this.mRemote = binder;
-        this._binderID = __getStubID();
+        //the identity of the binder, with no transaction, as the same remote object has a single binder in a process
+        this._binder = binder;
+        this._binderID = System.identityHashCode(binder);
         this._pid = Binder.getCallingPid();
     }
 
@@ -109,6 +130,157 @@ public class RemoteEventListener_Proxy implements RemoteEventListener {
         }
     }
 
+    @Override
+    public void onRemoteData(RemoteEventData remoteData_0) {
+        __checkProxy();
+        Parcel data = Parcel.obtain();
+        try {
+            data.writeInterfaceToken(DESCRIPTOR);
+            if (remoteData_0 != null) {
+                data.writeInt(1);
+                remoteData_0.writeToParcel(data, 0);
+            } else {
+                data.writeInt(0);
+            }
+            mRemote.transact(TRANSACTION_onRemoteData_4, data, null, IBinder.FLAG_ONEWAY);
+        } catch (RemoteException re) {
+            throw new RuntimeException(re);
+        } finally {
+            data.recycle();
+        }
+    }
+
+    @Override
+    public void onRemoteDataBatch(RemoteEventBatch remoteDataBatch_0) {
+        __checkProxy();
+        Parcel data = Parcel.obtain();
+        try {
+            data.writeInterfaceToken(DESCRIPTOR);
+            if (remoteDataBatch_0 != null) {
+                data.writeInt(1);
+                remoteDataBatch_0.writeToParcel(data, 0);
+            } else {
+                data.writeInt(0);
+            }
+            mRemote.transact(TRANSACTION_onRemoteDataBatch_5, data, null, IBinder.FLAG_ONEWAY);
+        } catch (RemoteException re) {
+            throw new RuntimeException(re);
+        } finally {
+            data.recycle();
+        }
+    }
+
+    @Override
+    public void onRemoteRingSetup(RemoteRingSetup ringSetup_0) {
+        __checkProxy();
+        Parcel data = Parcel.obtain();
+        try {
+            data.writeInterfaceToken(DESCRIPTOR);
+            if (ringSetup_0 != null) {
+                data.writeInt(1);
+                ringSetup_0.writeToParcel(data, 0);
+            } else {
+                data.writeInt(0);
+            }
+            mRemote.transact(TRANSACTION_onRemoteRingSetup_6, data, null, IBinder.FLAG_ONEWAY);
+        } catch (RemoteException re) {
+            throw new RuntimeException(re);
+        } finally {
+            data.recycle();
+        }
+    }
+
+    @Override
+    public void onRemoteDoorbell() {
+        __checkProxy();
+        Parcel data = Parcel.obtain();
+        try {
+            data.writeInterfaceToken(DESCRIPTOR);
+            mRemote.transact(TRANSACTION_onRemoteDoorbell_7, data, null, IBinder.FLAG_ONEWAY);
+        } catch (RemoteException re) {
+            throw new RuntimeException(re);
+        } finally {
+            data.recycle();
+        }
+    }
+
+    @Override
+    public void onRemoteDataChunk(RemoteEventChunk remoteDataChunk_0) {
+        __checkProxy();
+        Parcel data = Parcel.obtain();
+        try {
+            data.writeInterfaceToken(DESCRIPTOR);
+            if (remoteDataChunk_0 != null) {
+                data.writeInt(1);
+                remoteDataChunk_0.writeToParcel(data, 0);
+            } else {
+                data.writeInt(0);
+            }
+            mRemote.transact(TRANSACTION_onRemoteDataChunk_8, data, null, IBinder.FLAG_ONEWAY);
+        } catch (RemoteException re) {
+            throw new RuntimeException(re);
+        } finally {
+            data.recycle();
+        }
+    }
+
+    @Override
+    public void onRemotePrimitiveBatch(RemotePrimitiveBatch remotePrimitiveBatch_0) {
+        __checkProxy();
+        Parcel data = Parcel.obtain();
+        try {
+            data.writeInterfaceToken(DESCRIPTOR);
+            if (remotePrimitiveBatch_0 != null) {
+                data.writeInt(1);
+                remotePrimitiveBatch_0.writeToParcel(data, 0);
+            } else {
+                data.writeInt(0);
+            }
+            mRemote.transact(TRANSACTION_onRemotePrimitiveBatch_9, data, null, IBinder.FLAG_ONEWAY);
+        } catch (RemoteException re) {
+            throw new RuntimeException(re);
+        } finally {
+            data.recycle();
+        }
+    }
+
+    @Override
+    public void onRemoteSequence(long epoch_0, long sequence_1, long missed_2) {
+        __checkProxy();
+        Parcel data = Parcel.obtain();
+        try {
+            data.writeInterfaceToken(DESCRIPTOR);
+            data.writeLong(epoch_0);
+            data.writeLong(sequence_1);
+            data.writeLong(missed_2);
+            mRemote.transact(TRANSACTION_onRemoteSequence_10, data, null, IBinder.FLAG_ONEWAY);
+        } catch (RemoteException re) {
+            throw new RuntimeException(re);
+        } finally {
+            data.recycle();
+        }
+    }
+
+    @Override
+    public void onRemoteStreamBatch(RemoteStreamBatch remoteStreamBatch_0) {
+        __checkProxy();
+        Parcel data = Parcel.obtain();
+        try {
+            data.writeInterfaceToken(DESCRIPTOR);
+            if (remoteStreamBatch_0 != null) {
+                data.writeInt(1);
+                remoteStreamBatch_0.writeToParcel(data, 0);
+            } else {
+                data.writeInt(0);
+            }
+            mRemote.transact(TRANSACTION_onRemoteStreamBatch_11, data, null, IBinder.FLAG_ONEWAY);
+        } catch (RemoteException re) {
+            throw new RuntimeException(re);
+        } finally {
+            data.recycle();
+        }
+    }
+
 
     /**
      * Register a {@link IBinder.DeathRecipient} to know of binder connection lose
@@ -156,27 +328,6 @@ public class RemoteEventListener_Proxy implements RemoteEventListener {
         return exception;
     }
 
-    private int __getStubID() {
-        Parcel data = Parcel.obtain();
-        Parcel reply = Parcel.obtain();
-        int result;
-        try {
-            data.writeInterfaceToken(DESCRIPTOR);
-            mRemote.transact(TRANSACTION__getStubID, data, reply, 0);
-            Throwable exception = checkException(reply);
-            if (exception != null) {
-                throw (RuntimeException) exception;
-            }
-            result = reply.readInt();
-        } catch (RemoteException re) {
-            throw new RuntimeException(re);
-        } finally {
-            reply.recycle();
-            data.recycle();
-        }
-        return result;
-    }
-
     @Override
     public int hashCode() {
         return _binderID;
@@ -184,7 +335,7 @@ public class RemoteEventListener_Proxy implements RemoteEventListener {
 
     @Override
     public boolean equals(Object obj) {
-        return (obj instanceof RemoteEventListener_Proxy) && obj.hashCode() == hashCode();
+        return (obj instanceof RemoteEventListener_Proxy) && ((RemoteEventListener_Proxy) obj)._binder == _binder;
     }
 
     //@Override
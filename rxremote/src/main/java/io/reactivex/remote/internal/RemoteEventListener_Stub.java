@@ -30,6 +30,23 @@ public class RemoteEventListener_Stub extends Binder implements RemoterStub{
 
     private static final int TRANSACTION__getStubID = IBinder.FIRST_CALL_TRANSACTION + 3;
 
+    // Transactions added after _getStubID, keeping the existing codes stable for older peers
+    private static final int TRANSACTION_onRemoteData_4 = IBinder.FIRST_CALL_TRANSACTION + 4;
+
+    private static final int TRANSACTION_onRemoteDataBatch_5 = IBinder.FIRST_CALL_TRANSACTION + 5;
+
+    private static final int TRANSACTION_onRemoteRingSetup_6 = IBinder.FIRST_CALL_TRANSACTION + 6;
+
+    private static final int TRANSACTION_onRemoteDoorbell_7 = IBinder.FIRST_CALL_TRANSACTION + 7;
+
+    private static final int TRANSACTION_onRemoteDataChunk_8 = IBinder.FIRST_CALL_TRANSACTION + 8;
+
+    private static final int TRANSACTION_onRemotePrimitiveBatch_9 = IBinder.FIRST_CALL_TRANSACTION + 9;
+
+    private static final int TRANSACTION_onRemoteSequence_10 = IBinder.FIRST_CALL_TRANSACTION + 10;
+
+    private static final int TRANSACTION_onRemoteStreamBatch_11 = IBinder.FIRST_CALL_TRANSACTION + 11;
+
     private RemoteEventListener serviceImpl;
 
     private BinderWrapper binderWrapper;
@@ -47,9 +64,18 @@ public class RemoteEventListener_Stub extends Binder implements RemoterStub{
         this.attachInterface(binderWrapper, DESCRIPTOR);
     }
 
+    private boolean isCancelled() {
+        RemoteEventListener impl = serviceImpl;
+        return impl instanceof CancellableEventListener && ((CancellableEventListener) impl).isCancelled();
+    }
+
     @Override
     public boolean onTransact(int code, Parcel data, Parcel reply, int flags) throws RemoteException {
         try {
+            if (code != INTERFACE_TRANSACTION && code != TRANSACTION__getStubID && isCancelled()) {
+                //drop the events queued before the cancellation reached the service, without reading them
+                return true;
+            }
             switch (code) {
                 case INTERFACE_TRANSACTION: {
                     reply.writeString(DESCRIPTOR);
@@ -82,6 +108,88 @@ public class RemoteEventListener_Stub extends Binder implements RemoterStub{
                     serviceImpl.onError(arg_stb_0);
                     return true;
                 }
+                case TRANSACTION_onRemoteData_4: {
+                    data.enforceInterface(DESCRIPTOR);
+                    RemoteEventData arg_stb_0;
+                    if (data.readInt() != 0) {
+                        arg_stb_0 = RemoteEventData.CREATOR.createFromParcel(data);
+                    } else {
+                        arg_stb_0 = null;
+                    }
+                    serviceImpl.onRemoteData(arg_stb_0);
+                    return true;
+                }
+                case TRANSACTION_onRemoteDataBatch_5: {
+                    data.enforceInterface(DESCRIPTOR);
+                    RemoteEventBatch arg_stb_0;
+                    if (data.readInt() != 0) {
+                        arg_stb_0 = RemoteEventBatch.CREATOR.createFromParcel(data);
+                    } else {
+                        arg_stb_0 = null;
+                    }
+                    serviceImpl.onRemoteDataBatch(arg_stb_0);
+                    return true;
+                }
+                case TRANSACTION_onRemoteRingSetup_6: {
+                    data.enforceInterface(DESCRIPTOR);
+                    RemoteRingSetup arg_stb_0;
+                    if (data.readInt() != 0) {
+                        arg_stb_0 = RemoteRingSetup.CREATOR.createFromParcel(data);
+                    } else {
+                        arg_stb_0 = null;
+                    }
+                    serviceImpl.onRemoteRingSetup(arg_stb_0);
+                    return true;
+                }
+                case TRANSACTION_onRemoteDoorbell_7: {
+                    data.enforceInterface(DESCRIPTOR);
+                    serviceImpl.onRemoteDoorbell();
+                    return true;
+                }
+                case TRANSACTION_onRemoteDataChunk_8: {
+                    data.enforceInterface(DESCRIPTOR);
+                    RemoteEventChunk arg_stb_0;
+                    if (data.readInt() != 0) {
+                        arg_stb_0 = RemoteEventChunk.CREATOR.createFromParcel(data);
+                    } else {
+                        arg_stb_0 = null;
+                    }
+                    serviceImpl.onRemoteDataChunk(arg_stb_0);
+                    return true;
+                }
+                case TRANSACTION_onRemotePrimitiveBatch_9: {
+                    data.enforceInterface(DESCRIPTOR);
+                    RemotePrimitiveBatch arg_stb_0;
+                    if (data.readInt() != 0) {
+                        arg_stb_0 = RemotePrimitiveBatch.CREATOR.createFromParcel(data);
+                    } else {
+                        arg_stb_0 = null;
+                    }
+                    serviceImpl.onRemotePrimitiveBatch(arg_stb_0);
+                    return true;
+                }
+                case TRANSACTION_onRemoteSequence_10: {
+                    data.enforceInterface(DESCRIPTOR);
+                    long arg_stb_0;
+                    arg_stb_0 = data.readLong();
+                    long arg_stb_1;
+                    arg_stb_1 = data.readLong();
+                    long arg_stb_2;
+                    arg_stb_2 = data.readLong();
+                    serviceImpl.onRemoteSequence(arg_stb_0, arg_stb_1, arg_stb_2);
+                    return true;
+                }
+                case TRANSACTION_onRemoteStreamBatch_11: {
+                    data.enforceInterface(DESCRIPTOR);
+                    RemoteStreamBatch arg_stb_0;
+                    if (data.readInt() != 0) {
+                        arg_stb_0 = RemoteStreamBatch.CREATOR.createFromParcel(data);
+                    } else {
+                        arg_stb_0 = null;
+                    }
+                    serviceImpl.onRemoteStreamBatch(arg_stb_0);
+                    return true;
+                }
                 case TRANSACTION__getStubID: {
                     data.enforceInterface(DESCRIPTOR);
                     reply.writeNoException();
@@ -24,4 +24,57 @@ public interface RemoteEventManager {
 
     @Oneway
     void close();
+
+    /**
+     * Requests n more events to be delivered to the listeners subscribed by the calling process
+     */
+    @Oneway
+    void request(long n);
+
+    /**
+     * Removes the subscription of the given listener, leaving the other listeners subscribed
+     */
+    @Oneway
+    void unsubscribe(RemoteEventListener listener);
+
+    /**
+     * Requests n more events to be delivered to the given listener
+     */
+    @Oneway
+    void request(RemoteEventListener listener, long n);
+
+    /**
+     * Accepts the shared memory offered to the given listener, to which the data is delivered from then on
+     *
+     * @see RemoteEventListener#onRemoteRingSetup(RemoteRingSetup)
+     */
+    @Oneway
+    void attachRing(RemoteEventListener listener);
+
+    /**
+     * Subscribe to get the events delivered as per the given spec
+     */
+    @Oneway
+    void subscribe(RemoteEventListener listener, RemoteSubscriptionSpec spec);
+
+    /**
+     * Subscribe the listener to one of the streams of a channel, delivered along with its other streams
+     *
+     * @see RemoteEventListener#onRemoteStreamBatch(RemoteStreamBatch)
+     */
+    @Oneway
+    void subscribe(RemoteEventListener listener, int streamId);
+
+    /**
+     * Removes the subscription of the listener to one of the streams of a channel
+     */
+    @Oneway
+    void unsubscribe(RemoteEventListener listener, int streamId);
+
+    /**
+     * Removes the subscription of the given listener, if any, and closes if no other listener is subscribed.
+     * Unlike {@link #close()}, the other subscriptions of the calling process are left as they are
+     */
+    @Oneway
+    void close(RemoteEventListener listener);
 }
@@ -32,8 +32,27 @@ public class RemoteEventManager_Proxy implements RemoteEventManager {
 
     private static final int TRANSACTION__getStubID = IBinder.FIRST_CALL_TRANSACTION + 3;
 
+    // Transactions added after _getStubID, keeping the existing codes stable for older peers
+    private static final int TRANSACTION_request_4 = IBinder.FIRST_CALL_TRANSACTION + 4;
+
+    private static final int TRANSACTION_unsubscribe_5 = IBinder.FIRST_CALL_TRANSACTION + 5;
+
+    private static final int TRANSACTION_request_6 = IBinder.FIRST_CALL_TRANSACTION + 6;
+
+    private static final int TRANSACTION_attachRing_7 = IBinder.FIRST_CALL_TRANSACTION + 7;
+
+    private static final int TRANSACTION_subscribe_8 = IBinder.FIRST_CALL_TRANSACTION + 8;
+
+    private static final int TRANSACTION_subscribe_9 = IBinder.FIRST_CALL_TRANSACTION + 9;
+
+    private static final int TRANSACTION_unsubscribe_10 = IBinder.FIRST_CALL_TRANSACTION + 10;
+
+    private static final int TRANSACTION_close_11 = IBinder.FIRST_CALL_TRANSACTION + 11;
+
     private IBinder mRemote;
 
+    private final IBinder _binder;
+
     private final int _binderID;
 
     private final int _pid;
@@ -47,7 +66,9 @@ public class RemoteEventManager_Proxy implements RemoteEventManager {
      */
     public RemoteEventManager_Proxy(IBinder binder) {
         this.mRemote = binder;
-        this._binderID = __getStubID();
+        //the identity of the binder, with no transaction, as the same remote object has a single binder in a process
+        this._binder = binder;
+        this._binderID = System.identityHashCode(binder);
         this._pid = Binder.getCallingPid();
     }
 
@@ -104,6 +125,152 @@ public class RemoteEventManager_Proxy implements RemoteEventManager {
         }
     }
 
+    @Override
+    public void request(long n_0) {
+        __checkProxy();
+        Parcel data = Parcel.obtain();
+        try {
+            data.writeInterfaceToken(DESCRIPTOR);
+            data.writeLong(n_0);
+            mRemote.transact(TRANSACTION_request_4, data, null, IBinder.FLAG_ONEWAY);
+        } catch (RemoteException re) {
+            throw new RuntimeException(re);
+        } finally {
+            data.recycle();
+        }
+    }
+
+    @Override
+    public void unsubscribe(RemoteEventListener listener_0) {
+        __checkProxy();
+        Parcel data = Parcel.obtain();
+        try {
+            data.writeInterfaceToken(DESCRIPTOR);
+            data.writeStrongBinder(getListenerBinder(listener_0));
+            mRemote.transact(TRANSACTION_unsubscribe_5, data, null, IBinder.FLAG_ONEWAY);
+        } catch (RemoteException re) {
+            throw new RuntimeException(re);
+        } finally {
+            data.recycle();
+        }
+    }
+
+    @Override
+    public void request(RemoteEventListener listener_0, long n_1) {
+        __checkProxy();
+        Parcel data = Parcel.obtain();
+        try {
+            data.writeInterfaceToken(DESCRIPTOR);
+            data.writeStrongBinder(getListenerBinder(listener_0));
+            data.writeLong(n_1);
+            mRemote.transact(TRANSACTION_request_6, data, null, IBinder.FLAG_ONEWAY);
+        } catch (RemoteException re) {
+            throw new RuntimeException(re);
+        } finally {
+            data.recycle();
+        }
+    }
+
+    @Override
+    public void attachRing(RemoteEventListener listener_0) {
+        __checkProxy();
+        Parcel data = Parcel.obtain();
+        try {
+            data.writeInterfaceToken(DESCRIPTOR);
+            data.writeStrongBinder(getListenerBinder(listener_0));
+            mRemote.transact(TRANSACTION_attachRing_7, data, null, IBinder.FLAG_ONEWAY);
+        } catch (RemoteException re) {
+            throw new RuntimeException(re);
+        } finally {
+            data.recycle();
+        }
+    }
+
+    @Override
+    public void subscribe(RemoteEventListener listener_0, RemoteSubscriptionSpec spec_1) {
+        __checkProxy();
+        Parcel data = Parcel.obtain();
+        try {
+            data.writeInterfaceToken(DESCRIPTOR);
+            data.writeStrongBinder(getListenerBinder(listener_0));
+            if (spec_1 != null) {
+                data.writeInt(1);
+                spec_1.writeToParcel(data, 0);
+            } else {
+                data.writeInt(0);
+            }
+            mRemote.transact(TRANSACTION_subscribe_8, data, null, IBinder.FLAG_ONEWAY);
+        } catch (RemoteException re) {
+            throw new RuntimeException(re);
+        } finally {
+            data.recycle();
+        }
+    }
+
+    @Override
+    public void subscribe(RemoteEventListener listener_0, int streamId_1) {
+        __checkProxy();
+        Parcel data = Parcel.obtain();
+        try {
+            data.writeInterfaceToken(DESCRIPTOR);
+            data.writeStrongBinder(getListenerBinder(listener_0));
+            data.writeInt(streamId_1);
+            mRemote.transact(TRANSACTION_subscribe_9, data, null, IBinder.FLAG_ONEWAY);
+        } catch (RemoteException re) {
+            throw new RuntimeException(re);
+        } finally {
+            data.recycle();
+        }
+    }
+
+    @Override
+    public void unsubscribe(RemoteEventListener listener_0, int streamId_1) {
+        __checkProxy();
+        Parcel data = Parcel.obtain();
+        try {
+            data.writeInterfaceToken(DESCRIPTOR);
+            data.writeStrongBinder(getListenerBinder(listener_0));
+            data.writeInt(streamId_1);
+            mRemote.transact(TRANSACTION_unsubscribe_10, data, null, IBinder.FLAG_ONEWAY);
+        } catch (RemoteException re) {
+            throw new RuntimeException(re);
+        } finally {
+            data.recycle();
+        }
+    }
+
+    @Override
+    public void close(RemoteEventListener listener_0) {
+        __checkProxy();
+        Parcel data = Parcel.obtain();
+        try {
+            data.writeInterfaceToken(DESCRIPTOR);
+            data.writeStrongBinder(getListenerBinder(listener_0));
+            mRemote.transact(TRANSACTION_close_11, data, null, IBinder.FLAG_ONEWAY);
+        } catch (RemoteException re) {
+            throw new RuntimeException(re);
+        } finally {
+            data.recycle();
+        }
+    }
+
+    /**
+     * Returns the stub of the listener, the same one it was subscribed with
+     */
+    private IBinder getListenerBinder(RemoteEventListener listener) {
+        IBinder listenerBinder = null;
+        if (listener != null) {
+            synchronized (stubMap) {
+                listenerBinder = stubMap.get(listener);
+                if (listenerBinder == null) {
+                    listenerBinder = new RemoteEventListener_Stub(listener);
+                    stubMap.put(listener, listenerBinder);
+                }
+            }
+        }
+        return listenerBinder;
+    }
+
 
     /**
      * Register a {@link IBinder.DeathRecipient} to know of binder connection lose
@@ -151,27 +318,6 @@ public class RemoteEventManager_Proxy implements RemoteEventManager {
         return exception;
     }
 
-    private int __getStubID() {
-        Parcel data = Parcel.obtain();
-        Parcel reply = Parcel.obtain();
-        int result;
-        try {
-            data.writeInterfaceToken(DESCRIPTOR);
-            mRemote.transact(TRANSACTION__getStubID, data, reply, 0);
-            Throwable exception = checkException(reply);
-            if (exception != null) {
-                throw (RuntimeException) exception;
-            }
-            result = reply.readInt();
-        } catch (RemoteException re) {
-            throw new RuntimeException(re);
-        } finally {
-            reply.recycle();
-            data.recycle();
-        }
-        return result;
-    }
-
     @Override
     public int hashCode() {
         return _binderID;
@@ -179,7 +325,7 @@ public class RemoteEventManager_Proxy implements RemoteEventManager {
 
     @Override
     public boolean equals(Object obj) {
-        return (obj instanceof RemoteEventManager_Proxy) && obj.hashCode() == hashCode();
+        return (obj instanceof RemoteEventManager_Proxy) && ((RemoteEventManager_Proxy) obj)._binder == _binder;
     }
 
     //@Override
@@ -29,6 +29,23 @@ public class RemoteEventManager_Stub extends Binder implements RemoterStub {
 
     private static final int TRANSACTION__getStubID = IBinder.FIRST_CALL_TRANSACTION + 3;
 
+    // Transactions added after _getStubID, keeping the existing codes stable for older peers
+    private static final int TRANSACTION_request_4 = IBinder.FIRST_CALL_TRANSACTION + 4;
+
+    private static final int TRANSACTION_unsubscribe_5 = IBinder.FIRST_CALL_TRANSACTION + 5;
+
+    private static final int TRANSACTION_request_6 = IBinder.FIRST_CALL_TRANSACTION + 6;
+
+    private static final int TRANSACTION_attachRing_7 = IBinder.FIRST_CALL_TRANSACTION + 7;
+
+    private static final int TRANSACTION_subscribe_8 = IBinder.FIRST_CALL_TRANSACTION + 8;
+
+    private static final int TRANSACTION_subscribe_9 = IBinder.FIRST_CALL_TRANSACTION + 9;
+
+    private static final int TRANSACTION_unsubscribe_10 = IBinder.FIRST_CALL_TRANSACTION + 10;
+
+    private static final int TRANSACTION_close_11 = IBinder.FIRST_CALL_TRANSACTION + 11;
+
     private RemoteEventManager serviceImpl;
 
     private BinderWrapper binderWrapper;
@@ -46,6 +63,21 @@ public class RemoteEventManager_Stub extends Binder implements RemoterStub {
         this.attachInterface(binderWrapper, DESCRIPTOR);
     }
 
+    /**
+     * Returns the {@link RemoteEventManager} implementation if the binder is a {@link RemoteEventManager_Stub}
+     * in this process, or null
+     */
+    public static RemoteEventManager getLocalImplementation(IBinder binder) {
+        IInterface localInterface = binder != null ? binder.queryLocalInterface(DESCRIPTOR) : null;
+        if (localInterface instanceof BinderWrapper) {
+            IBinder localBinder = localInterface.asBinder();
+            if (localBinder instanceof RemoteEventManager_Stub) {
+                return ((RemoteEventManager_Stub) localBinder).serviceImpl;
+            }
+        }
+        return null;
+    }
+
     @Override
     public boolean onTransact(int code, Parcel data, Parcel reply, int flags) throws RemoteException {
         try {
@@ -71,6 +103,77 @@ public class RemoteEventManager_Stub extends Binder implements RemoterStub {
                     serviceImpl.close();
                     return true;
                 }
+                case TRANSACTION_request_4: {
+                    data.enforceInterface(DESCRIPTOR);
+                    long arg_stb_0;
+                    arg_stb_0 = data.readLong();
+                    serviceImpl.request(arg_stb_0);
+                    return true;
+                }
+                case TRANSACTION_unsubscribe_5: {
+                    data.enforceInterface(DESCRIPTOR);
+                    RemoteEventListener arg_stb_0;
+                    arg_stb_0 = new RemoteEventListener_Proxy(data.readStrongBinder());
+                    serviceImpl.unsubscribe(arg_stb_0);
+                    return true;
+                }
+                case TRANSACTION_request_6: {
+                    data.enforceInterface(DESCRIPTOR);
+                    RemoteEventListener arg_stb_0;
+                    arg_stb_0 = new RemoteEventListener_Proxy(data.readStrongBinder());
+                    long arg_stb_1;
+                    arg_stb_1 = data.readLong();
+                    serviceImpl.request(arg_stb_0, arg_stb_1);
+                    return true;
+                }
+                case TRANSACTION_attachRing_7: {
+                    data.enforceInterface(DESCRIPTOR);
+                    RemoteEventListener arg_stb_0;
+                    arg_stb_0 = new RemoteEventListener_Proxy(data.readStrongBinder());
+                    serviceImpl.attachRing(arg_stb_0);
+                    return true;
+                }
+                case TRANSACTION_subscribe_8: {
+                    data.enforceInterface(DESCRIPTOR);
+                    RemoteEventListener arg_stb_0;
+                    arg_stb_0 = new RemoteEventListener_Proxy(data.readStrongBinder());
+                    RemoteSubscriptionSpec arg_stb_1;
+                    if (data.readInt() != 0) {
+                        arg_stb_1 = RemoteSubscriptionSpec.CREATOR.createFromParcel(data);
+                    } else {
+                        arg_stb_1 = null;
+                    }
+                    serviceImpl.subscribe(arg_stb_0, arg_stb_1);
+                    return true;
+                }
+                case TRANSACTION_subscribe_9: {
+                    data.enforceInterface(DESCRIPTOR);
+                    RemoteEventListener arg_stb_0;
+                    arg_stb_0 = new RemoteEventListener_Proxy(data.readStrongBinder());
+                    int arg_stb_1;
+                    arg_stb_1 = data.readInt();
+                    serviceImpl.subscribe(arg_stb_0, arg_stb_1);
+                    return true;
+                }
+                case TRANSACTION_unsubscribe_10: {
+                    data.enforceInterface(DESCRIPTOR);
+                    RemoteEventListener arg_stb_0;
+                    arg_stb_0 = new RemoteEventListener_Proxy(data.readStrongBinder());
+                    int arg_stb_1;
+                    arg_stb_1 = data.readInt();
+                    serviceImpl.unsubscribe(arg_stb_0, arg_stb_1);
+                    return true;
+                }
+                case TRANSACTION_close_11: {
+                    data.enforceInterface(DESCRIPTOR);
+                    RemoteEventListener arg_stb_0 = null;
+                    IBinder listenerBinder = data.readStrongBinder();
+                    if (listenerBinder != null) {
+                        arg_stb_0 = new RemoteEventListener_Proxy(listenerBinder);
+                    }
+                    serviceImpl.close(arg_stb_0);
+                    return true;
+                }
                 case TRANSACTION__getStubID: {
                     data.enforceInterface(DESCRIPTOR);
                     reply.writeNoException();
@@ -0,0 +1,208 @@
+package io.reactivex.remote.internal;
+
+import android.os.Build;
+import android.os.Bundle;
+import android.os.Parcel;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @hide
+ * An event along with its encoded forms, created on first use.
+ * <p>
+ * A shared payload is encoded only once and then copied as is to every transaction it is sent in,
+ * so that the same event can be sent to many clients without encoding it for each of them
+ */
+public final class RemoteEventPayload {
+
+    private static final AtomicLong chunkSequence = new AtomicLong();
+
+    private final Object data;
+    private final RemoteDataType dataType;
+    private final boolean shared;
+    private RemoteEventData eventData;
+    private RemoteEventData offloadedEventData;
+    private List<RemoteEventChunk> chunks;
+    private int chunkSize;
+    private Bundle bundle;
+    private byte[] marshalled;
+    private boolean marshallFailed;
+    private volatile long sequence = -1;
+
+    /**
+     * Creates a payload for the given data and its type
+     *
+     * @param shared Whether the payload is sent to more than one client
+     */
+    public RemoteEventPayload(Object data, RemoteDataType dataType, boolean shared) {
+        this.data = data;
+        this.dataType = dataType;
+        this.shared = shared;
+    }
+
+    /**
+     * Returns the data
+     */
+    public Object getData() {
+        return data;
+    }
+
+    /**
+     * Returns the type of the data
+     */
+    public RemoteDataType getDataType() {
+        return dataType;
+    }
+
+    /**
+     * Returns the sequence number of the event, or -1 if it has none
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Sets the sequence number of the event, before it is sent
+     */
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    /**
+     * Returns the event in the compact format
+     */
+    public synchronized RemoteEventData getEventData() throws Exception {
+        if (eventData == null) {
+            eventData = shared ? RemoteEventData.encode(data, dataType) : new RemoteEventData(data, dataType);
+        }
+        return eventData;
+    }
+
+    /**
+     * Returns the event in the compact format, moved to shared memory if it is larger than the given threshold
+     *
+     * @param offloadThreshold The size in bytes above which the event is offloaded, or 0 to never offload
+     */
+    public synchronized RemoteEventData getEventData(int offloadThreshold) throws Exception {
+        if (offloadThreshold <= 0 || Build.VERSION.SDK_INT < Build.VERSION_CODES.O_MR1 || !canBeLarge(dataType)) {
+            return getEventData();
+        }
+        if (eventData == null || eventData.getEncodedSize() < 0) {
+            //encode now to know the size, and reuse the encoded event if it is small enough
+            eventData = RemoteEventData.encode(data, dataType);
+        }
+        if (eventData.getEncodedSize() <= offloadThreshold) {
+            return eventData;
+        }
+        if (offloadedEventData == null) {
+            try {
+                offloadedEventData = RemoteEventData.offload(eventData);
+            } catch (Exception ex) {
+                //such as when it holds a binder
+                Log.w("RemoteEventPayload", "Unable to offload event of size " + eventData.getEncodedSize(), ex);
+                return eventData;
+            }
+        }
+        return offloadedEventData;
+    }
+
+    /**
+     * Returns whether the event is larger than the given threshold, and would be offloaded to shared memory
+     *
+     * @see #getEventData(int)
+     */
+    public synchronized boolean isOffloaded(int offloadThreshold) throws Exception {
+        return getEventData(offloadThreshold) == offloadedEventData && offloadedEventData != null;
+    }
+
+    private static boolean canBeLarge(RemoteDataType dataType) {
+        switch (dataType) {
+            case String:
+            case List:
+            case Parcelable:
+            case Parceler:
+            case IntArray:
+            case LongArray:
+            case FloatArray:
+            case DoubleArray:
+            case ByteArray:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Returns whether this is a list with more than the given number of items
+     */
+    public boolean isChunked(int chunkSize) {
+        return chunkSize > 0 && dataType == RemoteDataType.List && data != null && ((List) data).size() > chunkSize;
+    }
+
+    /**
+     * Returns the list split in chunks of the given number of items
+     *
+     * @see #isChunked(int)
+     */
+    public synchronized List<RemoteEventChunk> getChunks(int chunkSize) throws Exception {
+        if (chunks == null || this.chunkSize != chunkSize) {
+            List listData = (List) data;
+            int totalSize = listData.size();
+            long sequenceId = chunkSequence.incrementAndGet();
+            List<RemoteEventChunk> listChunks = new ArrayList<>((totalSize + chunkSize - 1) / chunkSize);
+            for (int offset = 0; offset < totalSize; offset += chunkSize) {
+                List items = listData.subList(offset, Math.min(offset + chunkSize, totalSize));
+                RemoteEventData chunkData = shared ? RemoteEventData.encode(items, RemoteDataType.List) : new RemoteEventData(items, RemoteDataType.List);
+                listChunks.add(new RemoteEventChunk(sequenceId, offset, totalSize, chunkData));
+            }
+            this.chunks = listChunks;
+            this.chunkSize = chunkSize;
+        }
+        return chunks;
+    }
+
+    /**
+     * Returns the event in the compact format as raw bytes, or null if it can not be marshalled,
+     * such as when it holds a binder
+     */
+    public synchronized byte[] getMarshalled() {
+        if (marshalled == null && !marshallFailed) {
+            Parcel parcel = Parcel.obtain();
+            try {
+                RemoteDataCodec.writeData(parcel, data, dataType);
+                marshalled = parcel.marshall();
+            } catch (Exception ex) {
+                marshallFailed = true;
+            } finally {
+                parcel.recycle();
+            }
+        }
+        return marshalled;
+    }
+
+    /**
+     * Returns the event as a {@link Bundle}
+     */
+    public synchronized Bundle getBundle() throws Exception {
+        if (bundle == null) {
+            Bundle remoteData = new Bundle();
+            RemoteDataCodec.writeBundle(remoteData, data, dataType, "");
+            if (shared) {
+                //keep the bundle parcelled, so that it is copied as is to each transaction
+                Parcel parcel = Parcel.obtain();
+                try {
+                    remoteData.writeToParcel(parcel, 0);
+                    parcel.setDataPosition(0);
+                    remoteData = Bundle.CREATOR.createFromParcel(parcel);
+                } finally {
+                    parcel.recycle();
+                }
+            }
+            bundle = remoteData;
+        }
+        return bundle;
+    }
+}
@@ -0,0 +1,252 @@
+package io.reactivex.remote.internal;
+
+import android.os.SystemClock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import rx.Scheduler;
+import rx.Subscription;
+import rx.functions.Action0;
+
+/**
+ * @hide
+ * Operators a client asked to be applied to its events at the service side, before they are encoded and sent.
+ * Always accessed with the given lock held
+ *
+ * @see RemoteSubscriptionSpec
+ */
+public final class RemoteEventPipeline {
+
+    /**
+     * Receives the events and completion coming out of the pipeline
+     */
+    public interface Downstream {
+
+        void onEvent(RemoteEventPayload payload);
+
+        void onCompleted();
+    }
+
+    private final Object lock;
+    private final Scheduler.Worker worker;
+    private final Stage head;
+    private boolean closed;
+
+    private RemoteEventPipeline(RemoteSubscriptionSpec spec, final Downstream downstream, Object lock, Scheduler.Worker worker) {
+        this.lock = lock;
+        this.worker = worker;
+        Stage stage = new Stage() {
+            boolean done;
+
+            @Override
+            void onEvent(RemoteEventPayload payload) {
+                if (!done && !closed) {
+                    downstream.onEvent(payload);
+                }
+            }
+
+            @Override
+            void onCompleted() {
+                if (!done && !closed) {
+                    done = true;
+                    downstream.onCompleted();
+                }
+            }
+        };
+        for (int i = spec.getOperatorCount() - 1; i >= 0; i--) {
+            Stage previous = createStage(spec.getOperator(i), spec.getOperatorArg(i));
+            if (previous != null) {
+                previous.next = stage;
+                stage = previous;
+            }
+        }
+        this.head = stage;
+    }
+
+    /**
+     * Creates the pipeline for the spec, or returns null if it has no operators
+     *
+     * @param lock   The lock held while calling the pipeline, also taken by its timers
+     * @param worker Runs the timers of the time based operators
+     */
+    public static RemoteEventPipeline create(RemoteSubscriptionSpec spec, Downstream downstream, Object lock, Scheduler.Worker worker) {
+        if (spec == null || spec.getOperatorCount() == 0) {
+            return null;
+        }
+        return new RemoteEventPipeline(spec, downstream, lock, worker);
+    }
+
+    public void onEvent(RemoteEventPayload payload) {
+        head.onEvent(payload);
+    }
+
+    /**
+     * Completes the pipeline, sending the events any operator still holds first
+     */
+    public void onCompleted() {
+        head.onCompleted();
+    }
+
+    /**
+     * Stops the timers. Nothing is delivered after this
+     */
+    public void close() {
+        closed = true;
+        for (Stage stage = head; stage != null; stage = stage.next) {
+            stage.close();
+        }
+    }
+
+    private Stage createStage(int operator, final long arg) {
+        switch (operator) {
+            case RemoteSubscriptionSpec.OP_SKIP:
+                return new Stage() {
+                    long skipped;
+
+                    @Override
+                    void onEvent(RemoteEventPayload payload) {
+                        if (skipped < arg) {
+                            skipped++;
+                        } else {
+                            next.onEvent(payload);
+                        }
+                    }
+                };
+            case RemoteSubscriptionSpec.OP_TAKE:
+                return new Stage() {
+                    long taken;
+
+                    @Override
+                    void onEvent(RemoteEventPayload payload) {
+                        if (taken < arg) {
+                            taken++;
+                            next.onEvent(payload);
+                        }
+                        if (taken >= arg) {
+                            onCompleted();
+                        }
+                    }
+                };
+            case RemoteSubscriptionSpec.OP_DISTINCT_UNTIL_CHANGED:
+                return new Stage() {
+                    boolean hasLast;
+                    Object last;
+
+                    @Override
+                    void onEvent(RemoteEventPayload payload) {
+                        Object data = payload.getData();
+                        if (!hasLast || !(data == last || (data != null && data.equals(last)))) {
+                            hasLast = true;
+                            last = data;
+                            next.onEvent(payload);
+                        }
+                    }
+                };
+            case RemoteSubscriptionSpec.OP_THROTTLE_FIRST:
+                return new Stage() {
+                    long lastSent = -1;
+
+                    @Override
+                    void onEvent(RemoteEventPayload payload) {
+                        long now = SystemClock.uptimeMillis();
+                        if (lastSent < 0 || now - lastSent >= arg) {
+                            lastSent = now;
+                            next.onEvent(payload);
+                        }
+                    }
+                };
+            case RemoteSubscriptionSpec.OP_SAMPLE:
+                return new Stage() {
+                    RemoteEventPayload latest;
+                    Subscription timer;
+
+                    @Override
+                    void onEvent(RemoteEventPayload payload) {
+                        latest = payload;
+                        if (timer == null) {
+                            timer = worker.schedulePeriodically(new Action0() {
+                                @Override
+                                public void call() {
+                                    synchronized (lock) {
+                                        emitLatest();
+                                    }
+                                }
+                            }, arg, arg, TimeUnit.MILLISECONDS);
+                        }
+                    }
+
+                    void emitLatest() {
+                        RemoteEventPayload payload = latest;
+                        latest = null;
+                        if (payload != null && !closed) {
+                            next.onEvent(payload);
+                        }
+                    }
+
+                    @Override
+                    void onCompleted() {
+                        close();
+                        emitLatest();
+                        next.onCompleted();
+                    }
+
+                    @Override
+                    void close() {
+                        if (timer != null) {
+                            timer.unsubscribe();
+                            timer = null;
+                        }
+                    }
+                };
+            case RemoteSubscriptionSpec.OP_BUFFER:
+                return new Stage() {
+                    List<Object> buffer;
+
+                    @Override
+                    void onEvent(RemoteEventPayload payload) {
+                        if (buffer == null) {
+                            buffer = new ArrayList<>((int) arg);
+                        }
+                        buffer.add(payload.getData());
+                        if (buffer.size() >= arg) {
+                            emitBuffer();
+                        }
+                    }
+
+                    void emitBuffer() {
+                        List<Object> items = buffer;
+                        buffer = null;
+                        if (items != null && !items.isEmpty()) {
+                            next.onEvent(new RemoteEventPayload(items, RemoteDataType.List, false));
+                        }
+                    }
+
+                    @Override
+                    void onCompleted() {
+                        emitBuffer();
+                        next.onCompleted();
+                    }
+                };
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * An operator, passing on the events to the next one
+     */
+    private abstract static class Stage {
+        Stage next;
+
+        abstract void onEvent(RemoteEventPayload payload);
+
+        void onCompleted() {
+            next.onCompleted();
+        }
+
+        void close() {
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package io.reactivex.remote.internal;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import java.util.Arrays;
+
+/**
+ * @hide
+ * Numeric values packed in a primitive array, delivered in a single transaction without boxing
+ */
+public final class RemotePrimitiveBatch implements Parcelable {
+
+    public static final Creator<RemotePrimitiveBatch> CREATOR = new Creator<RemotePrimitiveBatch>() {
+        @Override
+        public RemotePrimitiveBatch createFromParcel(Parcel in) {
+            return new RemotePrimitiveBatch(in);
+        }
+
+        @Override
+        public RemotePrimitiveBatch[] newArray(int size) {
+            return new RemotePrimitiveBatch[size];
+        }
+    };
+
+    private final RemoteDataType dataType;
+    private int[] ints;
+    private long[] longs;
+    private double[] doubles;
+    private int size;
+
+    /**
+     * Creates an empty batch
+     *
+     * @param dataType One of {@link RemoteDataType#Integer}, {@link RemoteDataType#Long} or {@link RemoteDataType#Double}
+     * @param capacity Maximum number of values in this batch
+     */
+    public RemotePrimitiveBatch(RemoteDataType dataType, int capacity) {
+        this.dataType = dataType;
+        switch (dataType) {
+            case Integer:
+                ints = new int[capacity];
+                break;
+            case Long:
+                longs = new long[capacity];
+                break;
+            case Double:
+                doubles = new double[capacity];
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported primitive type " + dataType);
+        }
+    }
+
+    private RemotePrimitiveBatch(Parcel in) {
+        dataType = RemoteDataCodec.readDataType(in);
+        switch (dataType) {
+            case Integer:
+                ints = in.createIntArray();
+                size = ints.length;
+                break;
+            case Long:
+                longs = in.createLongArray();
+                size = longs.length;
+                break;
+            case Double:
+                doubles = in.createDoubleArray();
+                size = doubles.length;
+                break;
+        }
+    }
+
+    public RemoteDataType getDataType() {
+        return dataType;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isFull() {
+        switch (dataType) {
+            case Integer:
+                return size == ints.length;
+            case Long:
+                return size == longs.length;
+            default:
+                return size == doubles.length;
+        }
+    }
+
+    public void add(int value) {
+        ints[size++] = value;
+    }
+
+    public void add(long value) {
+        longs[size++] = value;
+    }
+
+    public void add(double value) {
+        doubles[size++] = value;
+    }
+
+    public int getInt(int index) {
+        return ints[index];
+    }
+
+    public long getLong(int index) {
+        return longs[index];
+    }
+
+    public double getDouble(int index) {
+        return doubles[index];
+    }
+
+    /**
+     * Returns the value at the given index, boxed
+     */
+    public Object get(int index) {
+        switch (dataType) {
+            case Integer:
+                return ints[index];
+            case Long:
+                return longs[index];
+            default:
+                return doubles[index];
+        }
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeInt(dataType.ordinal());
+        switch (dataType) {
+            case Integer:
+                dest.writeIntArray(size == ints.length ? ints : Arrays.copyOf(ints, size));
+                break;
+            case Long:
+                dest.writeLongArray(size == longs.length ? longs : Arrays.copyOf(longs, size));
+                break;
+            case Double:
+                dest.writeDoubleArray(size == doubles.length ? doubles : Arrays.copyOf(doubles, size));
+                break;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package io.reactivex.remote.internal;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * @hide
+ * Reconnects the {@link io.reactivex.remote.RemoteObservable}s whose service died, on a single thread shared by the whole process.
+ * <p>
+ * The reconnections are grouped by the binder that died, and each group makes progress on its own, so that
+ * a service that stays down does not hold back the reconnection to the others.
+ * The observables of a group are reconnected together, in one round. A round first tries one of them, and only
+ * goes on to the others once it succeeds, so that a service that is still down is not flooded with reconnections.
+ * Failed rounds are retried with an exponential backoff, with jitter so that the clients of a restarting service
+ * do not all reconnect at the same time.
+ */
+public final class RemoteReconnectScheduler {
+
+    /**
+     * A reconnection to attempt
+     */
+    public interface Reconnect {
+
+        /**
+         * Attempts the reconnection, on the reconnect thread
+         *
+         * @return false to try again later
+         */
+        boolean reconnect();
+    }
+
+    private static final String TAG = "RemoteReconnect";
+    private static final long INITIAL_DELAY_MILLIS = 1000;
+    private static final long MAX_DELAY_MILLIS = 60000;
+    private static final Object LOCK = new Object();
+    private static final Random random = new Random();
+    private static final Map<Object, Group> groups = new HashMap<>();
+    private static Handler handler;
+
+    private RemoteReconnectScheduler() {
+    }
+
+    /**
+     * Schedules the reconnection, with the ones already pending for the same dead binder if any
+     *
+     * @param deadBinder The binder whose death the reconnection is for
+     */
+    public static void schedule(Object deadBinder, Reconnect reconnect) {
+        synchronized (LOCK) {
+            Group group = groups.get(deadBinder);
+            if (group == null) {
+                group = new Group(deadBinder);
+                groups.put(deadBinder, group);
+            }
+            if (!group.pending.contains(reconnect)) {
+                group.pending.add(reconnect);
+            }
+            group.scheduleRound();
+        }
+    }
+
+    /**
+     * Cancels the reconnection if it has not been attempted yet, such as when the observable is closed
+     */
+    public static void cancel(Reconnect reconnect) {
+        synchronized (LOCK) {
+            for (Group group : new ArrayList<>(groups.values())) {
+                if (group.pending.remove(reconnect)) {
+                    group.removeIfDone();
+                }
+            }
+        }
+    }
+
+    /**
+     * The reconnections pending for a binder that died, with their own backoff
+     */
+    private static final class Group {
+
+        private final Object deadBinder;
+        private final List<Reconnect> pending = new ArrayList<>();
+        private boolean scheduled;
+        private int attempt;
+
+        Group(Object deadBinder) {
+            this.deadBinder = deadBinder;
+        }
+
+        /**
+         * Called with the LOCK held
+         */
+        void scheduleRound() {
+            if (scheduled || pending.isEmpty()) {
+                return;
+            }
+            if (handler == null) {
+                HandlerThread handlerThread = new HandlerThread("ObservableReconnect");
+                handlerThread.start();
+                handler = new Handler(handlerThread.getLooper());
+            }
+            scheduled = true;
+            long delay = Math.min(MAX_DELAY_MILLIS, INITIAL_DELAY_MILLIS << Math.min(attempt, 16));
+            //anywhere between half and all of the delay
+            delay = delay / 2 + (long) (random.nextDouble() * (delay / 2));
+            handler.postDelayed(new Runnable() {
+                @Override
+                public void run() {
+                    runRound();
+                }
+            }, delay);
+        }
+
+        /**
+         * Forgets this group once it has nothing left to reconnect. Called with the LOCK held
+         */
+        void removeIfDone() {
+            if (pending.isEmpty() && groups.get(deadBinder) == this) {
+                groups.remove(deadBinder);
+            }
+        }
+
+        private void runRound() {
+            List<Reconnect> round;
+            synchronized (LOCK) {
+                scheduled = false;
+                round = new ArrayList<>(pending);
+            }
+            boolean failed = false;
+            boolean first = true;
+            for (Reconnect reconnect : round) {
+                synchronized (LOCK) {
+                    if (!pending.contains(reconnect)) {
+                        //cancelled meanwhile
+                        continue;
+                    }
+                }
+                if (reconnect.reconnect()) {
+                    synchronized (LOCK) {
+                        pending.remove(reconnect);
+                    }
+                } else {
+                    failed = true;
+                    if (first) {
+                        //the service is likely still down, leave the others for the next round
+                        break;
+                    }
+                }
+                first = false;
+            }
+            synchronized (LOCK) {
+                if (failed) {
+                    attempt++;
+                    Log.i(TAG, "Reconnection failed, retrying " + pending.size() + " after attempt " + attempt);
+                } else {
+                    attempt = 0;
+                }
+                removeIfDone();
+                scheduleRound();
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package io.reactivex.remote.internal;
+
+import android.os.SystemClock;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @hide
+ * The most recent events, bounded by count, age and size, replayed to the clients that subscribe late.
+ * A bound of 0 or less is not applied. The latest event is always kept, even when larger than the size bound.
+ */
+public final class RemoteReplayBuffer {
+
+    private final int maxCount;
+    private final long maxAgeMillis;
+    private final long maxBytes;
+    private final ArrayDeque<Entry> entries = new ArrayDeque<>();
+    private long bytes;
+
+    public RemoteReplayBuffer(int maxCount, long maxAgeMillis, long maxBytes) {
+        this.maxCount = maxCount;
+        this.maxAgeMillis = maxAgeMillis;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns whether any bound is set, so that the buffer does not grow forever
+     */
+    public static boolean isBounded(int maxCount, long maxAgeMillis, long maxBytes) {
+        return maxCount > 0 || maxAgeMillis > 0 || maxBytes > 0;
+    }
+
+    public synchronized void add(RemoteEventPayload payload) {
+        //the size is only measured when bounded by it
+        int size = 0;
+        if (maxBytes > 0) {
+            byte[] marshalled = payload.getMarshalled();
+            size = marshalled != null ? marshalled.length : 0;
+        }
+        entries.addLast(new Entry(payload, SystemClock.uptimeMillis(), size));
+        bytes += size;
+        trim();
+    }
+
+    /**
+     * Adds the events of the other buffer that are still within the bounds of this one
+     */
+    public synchronized void addAll(RemoteReplayBuffer other) {
+        for (RemoteEventPayload payload : other.getPayloads()) {
+            add(payload);
+        }
+    }
+
+    /**
+     * Returns the events to replay, oldest first
+     */
+    public synchronized List<RemoteEventPayload> getPayloads() {
+        trim();
+        List<RemoteEventPayload> payloads = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            payloads.add(entry.payload);
+        }
+        return payloads;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    private void trim() {
+        long now = SystemClock.uptimeMillis();
+        while (!entries.isEmpty()) {
+            Entry oldest = entries.peekFirst();
+            if ((maxCount > 0 && entries.size() > maxCount)
+                    || (maxBytes > 0 && bytes > maxBytes && entries.size() > 1)
+                    || (maxAgeMillis > 0 && now - oldest.time > maxAgeMillis)) {
+                entries.removeFirst();
+                bytes -= oldest.size;
+            } else {
+                break;
+            }
+        }
+    }
+
+    private static final class Entry {
+        final RemoteEventPayload payload;
+        final long time;
+        final int size;
+
+        Entry(RemoteEventPayload payload, long time, int size) {
+            this.payload = payload;
+            this.time = time;
+            this.size = size;
+        }
+    }
+}
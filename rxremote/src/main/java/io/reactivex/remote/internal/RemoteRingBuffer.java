@@ -0,0 +1,323 @@
+package io.reactivex.remote.internal;
+
+import android.os.Build;
+import android.os.Parcel;
+import android.os.SharedMemory;
+import android.support.annotation.RequiresApi;
+import android.system.ErrnoException;
+import android.util.Log;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import rx.functions.Action1;
+
+/**
+ * @hide
+ * A single producer, single consumer ring buffer of events in {@link SharedMemory}.
+ * <p>
+ * The service writes the events with {@link #offer(RemoteEventPayload)} and the client reads them with
+ * {@link #drain(Action1)}, each from its own mapping of the same memory. Each side only ever writes its own index.
+ * <p>
+ * Each record is its size followed by the type tag and the value. Primitives are written as is, while the other
+ * types are written as the marshalled compact format. A record that does not fit before the end of the ring is
+ * written at the start, after a wrap marker.
+ * <p>
+ * The client sets the parked flag when it stops polling, and the service then rings the doorbell
+ * through binder after writing the next event.
+ * <p>
+ * There is no lock shared by the two processes, the indices are ordered with {@link #fence()} only.
+ * It relies on ART emitting a full memory barrier for each monitor enter and exit, as it does on all the
+ * architectures it supports, while java.nio has no fence of its own below API level 33.
+ */
+@RequiresApi(Build.VERSION_CODES.O_MR1)
+public final class RemoteRingBuffer {
+
+    /**
+     * The event was written to the ring
+     */
+    public static final int OFFERED = 0;
+    /**
+     * The ring is full, the event was not written
+     */
+    public static final int FULL = 1;
+    /**
+     * The event can not be written to the ring, and has to be sent in a transaction
+     */
+    public static final int UNSUPPORTED = 2;
+
+    private static final String TAG = "RemoteRingBuffer";
+    //the indices and the flag are on separate cache lines, as they are written by different processes
+    private static final int WRITE_INDEX = 0;
+    private static final int READ_INDEX = 64;
+    private static final int PARKED = 128;
+    private static final int HEADER_SIZE = 192;
+    private static final int RECORD_ALIGNMENT = 8;
+    private static final int WRAP = -1;
+    private static final int MARSHALLED = -2;
+    private static final Object FENCE = new Object();
+    private static final RemoteDataType[] DATA_TYPES = RemoteDataType.values();
+
+    private final SharedMemory sharedMemory;
+    private final ByteBuffer buffer;
+    private final int capacity;
+    //the write index at the service, the read index at the client
+    private long index;
+
+    private RemoteRingBuffer(SharedMemory sharedMemory) throws ErrnoException {
+        this.sharedMemory = sharedMemory;
+        this.buffer = sharedMemory.mapReadWrite().order(ByteOrder.nativeOrder());
+        this.capacity = (sharedMemory.getSize() - HEADER_SIZE) / RECORD_ALIGNMENT * RECORD_ALIGNMENT;
+    }
+
+    /**
+     * Creates a ring that can hold the given number of bytes of events, at the service
+     */
+    public static RemoteRingBuffer create(int capacity) throws ErrnoException {
+        return new RemoteRingBuffer(SharedMemory.create(TAG, HEADER_SIZE + capacity));
+    }
+
+    /**
+     * Attaches to the ring created by the service, at the client
+     */
+    public static RemoteRingBuffer attach(SharedMemory sharedMemory) throws ErrnoException {
+        RemoteRingBuffer ringBuffer = new RemoteRingBuffer(sharedMemory);
+        fence();
+        ringBuffer.index = ringBuffer.buffer.getLong(READ_INDEX);
+        return ringBuffer;
+    }
+
+    /**
+     * Returns the shared memory, to send to the client
+     */
+    public SharedMemory getSharedMemory() {
+        return sharedMemory;
+    }
+
+    /**
+     * Writes the event to the ring, returning {@link #OFFERED}, {@link #FULL} or {@link #UNSUPPORTED}
+     */
+    public int offer(RemoteEventPayload payload) {
+        RemoteDataType dataType = payload.getDataType();
+        int valueSize = getValueSize(dataType);
+        byte[] marshalled = null;
+        if (valueSize < 0) {
+            marshalled = payload.getMarshalled();
+            if (marshalled == null) {
+                return UNSUPPORTED;
+            }
+            valueSize = marshalled.length;
+        }
+        int bodySize = 4 + valueSize;
+        int recordSize = align(4 + bodySize);
+        if (recordSize > capacity) {
+            return UNSUPPORTED;
+        }
+
+        fence();
+        long readIndex = buffer.getLong(READ_INDEX);
+        int position = (int) (index % capacity);
+        int skip = position + recordSize > capacity ? capacity - position : 0;
+        if (index + skip + recordSize - readIndex > capacity) {
+            return FULL;
+        }
+        if (skip > 0) {
+            buffer.putInt(HEADER_SIZE + position, WRAP);
+            index += skip;
+            position = 0;
+        }
+
+        int offset = HEADER_SIZE + position;
+        buffer.putInt(offset, bodySize);
+        if (marshalled != null) {
+            buffer.putInt(offset + 4, MARSHALLED);
+            buffer.position(offset + 8);
+            buffer.put(marshalled);
+        } else {
+            buffer.putInt(offset + 4, dataType.ordinal());
+            writeValue(offset + 8, payload.getData(), dataType);
+        }
+        index += recordSize;
+
+        //publish the record before the index
+        fence();
+        buffer.putLong(WRITE_INDEX, index);
+        return OFFERED;
+    }
+
+    /**
+     * Returns whether the client has parked since the last call, in which case the doorbell needs to be rung
+     */
+    public boolean takeParked() {
+        fence();
+        if (buffer.getInt(PARKED) != 0) {
+            buffer.putInt(PARKED, 0);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Reads all the events written so far, in order, at the client.
+     * An event that can not be read is skipped
+     *
+     * @return The number of events read
+     */
+    public int drain(Action1<Object> consumer) {
+        int count = 0;
+        fence();
+        long writeIndex = buffer.getLong(WRITE_INDEX);
+        while (index < writeIndex) {
+            int position = (int) (index % capacity);
+            int offset = HEADER_SIZE + position;
+            int bodySize = buffer.getInt(offset);
+            if (bodySize == WRAP) {
+                index += capacity - position;
+                continue;
+            }
+            Object data = null;
+            boolean read = false;
+            try {
+                data = readValue(offset + 4, bodySize);
+                read = true;
+            } catch (Exception ex) {
+                Log.w(TAG, "Unable to read event, dropping it", ex);
+            }
+            index += align(4 + bodySize);
+
+            //free the space before delivering
+            fence();
+            buffer.putLong(READ_INDEX, index);
+            count++;
+            if (read) {
+                consumer.call(data);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Sets the parked flag, so that the service rings the doorbell for the next event, at the client.
+     *
+     * @return false if an event was written in the meantime, in which case the client should not park
+     */
+    public boolean park() {
+        buffer.putInt(PARKED, 1);
+        fence();
+        if (buffer.getLong(WRITE_INDEX) != index) {
+            buffer.putInt(PARKED, 0);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Unmaps and closes this side of the ring
+     */
+    public void close() {
+        SharedMemory.unmap(buffer);
+        sharedMemory.close();
+    }
+
+    /**
+     * Orders the accesses to the shared memory, as the monitor enter and exit are full barriers on ART.
+     */
+    private static void fence() {
+        synchronized (FENCE) {
+            //nothing to do, the barrier is all that is needed
+        }
+    }
+
+    private static int align(int size) {
+        return (size + RECORD_ALIGNMENT - 1) / RECORD_ALIGNMENT * RECORD_ALIGNMENT;
+    }
+
+    /**
+     * Returns the size of the primitives written as is, or -1
+     */
+    private static int getValueSize(RemoteDataType dataType) {
+        switch (dataType) {
+            case Byte:
+            case Boolean:
+                return 1;
+            case Short:
+            case Char:
+                return 2;
+            case Integer:
+            case Float:
+                return 4;
+            case Long:
+            case Double:
+                return 8;
+            default:
+                return -1;
+        }
+    }
+
+    private void writeValue(int offset, Object data, RemoteDataType dataType) {
+        switch (dataType) {
+            case Byte:
+                buffer.put(offset, (Byte) data);
+                break;
+            case Boolean:
+                buffer.put(offset, (byte) ((Boolean) data ? 1 : 0));
+                break;
+            case Short:
+                buffer.putShort(offset, (Short) data);
+                break;
+            case Char:
+                buffer.putChar(offset, (Character) data);
+                break;
+            case Integer:
+                buffer.putInt(offset, (Integer) data);
+                break;
+            case Float:
+                buffer.putFloat(offset, (Float) data);
+                break;
+            case Long:
+                buffer.putLong(offset, (Long) data);
+                break;
+            case Double:
+                buffer.putDouble(offset, (Double) data);
+                break;
+        }
+    }
+
+    private Object readValue(int offset, int bodySize) throws Exception {
+        int tag = buffer.getInt(offset);
+        int valueOffset = offset + 4;
+        if (tag == MARSHALLED) {
+            byte[] marshalled = new byte[bodySize - 4];
+            buffer.position(valueOffset);
+            buffer.get(marshalled);
+            Parcel parcel = Parcel.obtain();
+            try {
+                parcel.unmarshall(marshalled, 0, marshalled.length);
+                parcel.setDataPosition(0);
+                //written by RemoteEventPayload#getMarshalled, without the size of the event
+                return RemoteDataCodec.readData(parcel, RemoteDataCodec.readDataType(parcel), RemoteEventData.class.getClassLoader());
+            } finally {
+                parcel.recycle();
+            }
+        }
+        switch (DATA_TYPES[tag]) {
+            case Byte:
+                return buffer.get(valueOffset);
+            case Boolean:
+                return buffer.get(valueOffset) == 1;
+            case Short:
+                return buffer.getShort(valueOffset);
+            case Char:
+                return buffer.getChar(valueOffset);
+            case Integer:
+                return buffer.getInt(valueOffset);
+            case Float:
+                return buffer.getFloat(valueOffset);
+            case Long:
+                return buffer.getLong(valueOffset);
+            case Double:
+                return buffer.getDouble(valueOffset);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,129 @@
+package io.reactivex.remote.internal;
+
+import android.os.Build;
+import android.os.SystemClock;
+import android.support.annotation.RequiresApi;
+import android.util.Log;
+
+import rx.functions.Action1;
+
+/**
+ * @hide
+ * Reads the events of a {@link RemoteRingBuffer} at the client.
+ * <p>
+ * A thread polls the ring while events keep coming, and parks once it stays empty, until the service rings
+ * the doorbell. The events are delivered holding the given lock, which is also to be held while delivering
+ * the events received through binder, so that they are all delivered one at a time and in order.
+ * <p>
+ * The service switches to binder transactions when the ring is full, or for an event that can not be written
+ * to it. Reading the ring is then suspended on the first event received through binder, until the service
+ * switches back and rings the doorbell, after all the events it sent through binder meanwhile.
+ * The ring is suspended the same way until the first doorbell, which tells the service has started using it.
+ */
+@RequiresApi(Build.VERSION_CODES.O_MR1)
+public final class RemoteRingConsumer implements Runnable {
+
+    private static final String TAG = "RemoteRingConsumer";
+    private static final long POLL_INTERVAL_MILLIS = 2;
+    private static final long PARK_AFTER_IDLE_MILLIS = 50;
+
+    private final RemoteRingBuffer ringBuffer;
+    private final Object lock;
+    private final Action1<Object> consumer;
+    private Thread thread;
+    private boolean woken;
+    private boolean suspended = true;
+    private boolean closed;
+
+    /**
+     * Creates a consumer delivering the events of the ring to the given consumer
+     */
+    public RemoteRingConsumer(RemoteRingBuffer ringBuffer, Object lock, Action1<Object> consumer) {
+        this.ringBuffer = ringBuffer;
+        this.lock = lock;
+        this.consumer = consumer;
+    }
+
+    /**
+     * Delivers the events written so far, and suspends reading the ring until the next doorbell.
+     * Call before delivering an event received through binder
+     *
+     * @return true if it was not suspended already, in which case the service is to be asked to switch back to the ring
+     */
+    public boolean drainAndSuspend() {
+        synchronized (lock) {
+            if (closed || suspended) {
+                return false;
+            }
+            ringBuffer.drain(consumer);
+            suspended = true;
+            return true;
+        }
+    }
+
+    /**
+     * Called when the service rings the doorbell, to deliver the events and resume polling
+     */
+    public void wake() {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            suspended = false;
+            ringBuffer.drain(consumer);
+            if (thread == null) {
+                thread = new Thread(this, TAG);
+                thread.setDaemon(true);
+                thread.start();
+            }
+            woken = true;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Stops polling and detaches from the ring
+     */
+    public void close() {
+        synchronized (lock) {
+            if (!closed) {
+                closed = true;
+                lock.notifyAll();
+                ringBuffer.close();
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        long idleSince = SystemClock.uptimeMillis();
+        try {
+            while (true) {
+                synchronized (lock) {
+                    if (closed) {
+                        return;
+                    }
+                    if (suspended) {
+                        //until the doorbell, after the events sent through binder meanwhile
+                        lock.wait();
+                        idleSince = SystemClock.uptimeMillis();
+                        continue;
+                    }
+                    if (ringBuffer.drain(consumer) > 0) {
+                        idleSince = SystemClock.uptimeMillis();
+                    } else if (SystemClock.uptimeMillis() - idleSince >= PARK_AFTER_IDLE_MILLIS && ringBuffer.park()) {
+                        woken = false;
+                        while (!woken && !closed) {
+                            lock.wait();
+                        }
+                        idleSince = SystemClock.uptimeMillis();
+                        continue;
+                    }
+                }
+                Thread.sleep(POLL_INTERVAL_MILLIS);
+            }
+        } catch (InterruptedException ex) {
+            Log.w(TAG, "Interrupted", ex);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package io.reactivex.remote.internal;
+
+import android.os.Build;
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.os.SharedMemory;
+import android.support.annotation.RequiresApi;
+
+/**
+ * @hide
+ * The shared memory of a {@link RemoteRingBuffer}, sent to the client to attach to it.
+ * It is only sent from API level 27, and read as empty below it
+ */
+public final class RemoteRingSetup implements Parcelable {
+
+    public static final Creator<RemoteRingSetup> CREATOR = new Creator<RemoteRingSetup>() {
+        @Override
+        public RemoteRingSetup createFromParcel(Parcel in) {
+            return new RemoteRingSetup(in);
+        }
+
+        @Override
+        public RemoteRingSetup[] newArray(int size) {
+            return new RemoteRingSetup[size];
+        }
+    };
+
+    private final SharedMemory sharedMemory;
+
+    /**
+     * Creates the setup for the given shared memory
+     */
+    @RequiresApi(Build.VERSION_CODES.O_MR1)
+    public RemoteRingSetup(SharedMemory sharedMemory) {
+        this.sharedMemory = sharedMemory;
+    }
+
+    private RemoteRingSetup(Parcel in) {
+        sharedMemory = Build.VERSION.SDK_INT >= Build.VERSION_CODES.O_MR1 ? RemoteSharedMemory.readFromParcel(in) : null;
+    }
+
+    /**
+     * Returns the shared memory
+     */
+    @RequiresApi(Build.VERSION_CODES.O_MR1)
+    public SharedMemory getSharedMemory() {
+        return sharedMemory;
+    }
+
+    @Override
+    public int describeContents() {
+        return CONTENTS_FILE_DESCRIPTOR;
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeParcelable(sharedMemory, flags);
+    }
+}
@@ -0,0 +1,62 @@
+package io.reactivex.remote.internal;
+
+import android.os.Build;
+import android.os.Parcel;
+import android.os.SharedMemory;
+import android.support.annotation.RequiresApi;
+import android.system.OsConstants;
+
+import java.nio.ByteBuffer;
+
+/**
+ * @hide
+ * Reads and writes {@link SharedMemory}, which is only available from API level 27.
+ * <p>
+ * Kept apart so that the classes loaded at every API level do not refer to it,
+ * and only called after checking {@link Build.VERSION#SDK_INT}
+ */
+@RequiresApi(Build.VERSION_CODES.O_MR1)
+final class RemoteSharedMemory {
+
+    private RemoteSharedMemory() {
+    }
+
+    /**
+     * Returns a new read only shared memory holding the given bytes
+     */
+    static SharedMemory create(String name, byte[] bytes) throws Exception {
+        SharedMemory sharedMemory = SharedMemory.create(name, bytes.length);
+        try {
+            ByteBuffer buffer = sharedMemory.mapReadWrite();
+            buffer.put(bytes);
+            SharedMemory.unmap(buffer);
+            sharedMemory.setProtect(OsConstants.PROT_READ);
+        } catch (Exception ex) {
+            sharedMemory.close();
+            throw ex;
+        }
+        return sharedMemory;
+    }
+
+    /**
+     * Returns the bytes of the given shared memory, closing it
+     */
+    static byte[] readAndClose(SharedMemory sharedMemory) throws Exception {
+        byte[] bytes = new byte[sharedMemory.getSize()];
+        try {
+            ByteBuffer buffer = sharedMemory.mapReadOnly();
+            buffer.get(bytes);
+            SharedMemory.unmap(buffer);
+        } finally {
+            sharedMemory.close();
+        }
+        return bytes;
+    }
+
+    /**
+     * Reads a shared memory written with {@link Parcel#writeParcelable(android.os.Parcelable, int)}
+     */
+    static SharedMemory readFromParcel(Parcel in) {
+        return in.readParcelable(SharedMemory.class.getClassLoader());
+    }
+}
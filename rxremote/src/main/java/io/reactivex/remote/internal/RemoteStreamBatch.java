@@ -0,0 +1,172 @@
+package io.reactivex.remote.internal;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @hide
+ * The events of the streams of a channel that were ready at the same time, delivered in a single transaction
+ *
+ * @see RemoteEventData
+ */
+public final class RemoteStreamBatch implements Parcelable {
+
+    public static final Creator<RemoteStreamBatch> CREATOR = new Creator<RemoteStreamBatch>() {
+        @Override
+        public RemoteStreamBatch createFromParcel(Parcel in) {
+            return new RemoteStreamBatch(in);
+        }
+
+        @Override
+        public RemoteStreamBatch[] newArray(int size) {
+            return new RemoteStreamBatch[size];
+        }
+    };
+
+    /**
+     * What an entry of the batch is
+     */
+    public static final int KIND_DATA = 0;
+    public static final int KIND_COMPLETED = 1;
+    public static final int KIND_ERROR = 2;
+
+    private static final String TAG = "RemoteStreamBatch";
+
+    private final List<Entry> entries;
+
+    /**
+     * Creates an empty batch
+     */
+    public RemoteStreamBatch() {
+        this.entries = new ArrayList<>();
+    }
+
+    private RemoteStreamBatch(Parcel in) {
+        int size = in.readInt();
+        entries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int streamId = in.readInt();
+            int kind = in.readInt();
+            Object value = null;
+            if (kind == KIND_DATA) {
+                value = RemoteEventData.CREATOR.createFromParcel(in);
+            } else if (kind == KIND_ERROR) {
+                value = readError(in);
+            }
+            entries.add(new Entry(streamId, kind, value));
+        }
+    }
+
+    /**
+     * Adds the data of the given stream
+     */
+    public void addData(int streamId, RemoteEventData eventData) {
+        entries.add(new Entry(streamId, KIND_DATA, eventData));
+    }
+
+    /**
+     * Adds the completion of the given stream
+     */
+    public void addCompleted(int streamId) {
+        entries.add(new Entry(streamId, KIND_COMPLETED, null));
+    }
+
+    /**
+     * Adds the error of the given stream
+     */
+    public void addError(int streamId, Exception exception) {
+        entries.add(new Entry(streamId, KIND_ERROR, exception));
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    public int getStreamId(int index) {
+        return entries.get(index).streamId;
+    }
+
+    /**
+     * Returns one of the KIND_ constants
+     */
+    public int getKind(int index) {
+        return entries.get(index).kind;
+    }
+
+    /**
+     * Returns the data of an entry of {@link #KIND_DATA}
+     */
+    public RemoteEventData getData(int index) {
+        return (RemoteEventData) entries.get(index).value;
+    }
+
+    /**
+     * Returns the exception of an entry of {@link #KIND_ERROR}
+     */
+    public Exception getError(int index) {
+        return (Exception) entries.get(index).value;
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeInt(entries.size());
+        for (Entry entry : entries) {
+            dest.writeInt(entry.streamId);
+            dest.writeInt(entry.kind);
+            if (entry.kind == KIND_DATA) {
+                ((RemoteEventData) entry.value).writeToParcel(dest, flags);
+            } else if (entry.kind == KIND_ERROR) {
+                //size prefixed, so that the rest of the transaction can be read even if the error can not
+                int sizePosition = dest.dataPosition();
+                dest.writeInt(0);
+                dest.writeValue(entry.value);
+                int end = dest.dataPosition();
+                dest.setDataPosition(sizePosition);
+                dest.writeInt(end - sizePosition - 4);
+                dest.setDataPosition(end);
+            }
+        }
+    }
+
+    /**
+     * Reads the error of a stream. One that can not be read still ends the stream, with a generic error
+     */
+    private static Exception readError(Parcel in) {
+        int size = in.readInt();
+        int end = in.dataPosition() + size;
+        Exception error;
+        try {
+            error = (Exception) in.readValue(RemoteStreamBatch.class.getClassLoader());
+        } catch (Exception e) {
+            Log.w(TAG, "Unable to read stream error", e);
+            error = new RuntimeException("Stream error could not be read");
+        }
+        in.setDataPosition(end);
+        return error;
+    }
+
+    private static final class Entry {
+        final int streamId;
+        final int kind;
+        final Object value;
+
+        Entry(int streamId, int kind, Object value) {
+            this.streamId = streamId;
+            this.kind = kind;
+            this.value = value;
+        }
+    }
+}
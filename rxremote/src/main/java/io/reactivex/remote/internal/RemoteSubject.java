@@ -11,7 +11,6 @@ import rx.Subscriber;
 import rx.Subscription;
 import rx.exceptions.Exceptions;
 import rx.exceptions.MissingBackpressureException;
-import rx.internal.operators.BackpressureUtils;
 import rx.subjects.Subject;
 
 /**
@@ -21,6 +20,8 @@ public class RemoteSubject<T> extends Subject<T, T> {
 
     final PublishSubjectState<T> state;
     private boolean closed;
+    private final Object requestLock = new Object();
+    private long requestedFromSource;
 
     /**
      * Creates an instance of remote subject
@@ -40,10 +41,51 @@ public class RemoteSubject<T> extends Subject<T, T> {
         closed = true;
     }
 
+    /**
+     * Adds the two requested counts, capped at {@link Long#MAX_VALUE} which stands for unbounded
+     */
+    public static long addCap(long a, long b) {
+        long u = a + b;
+        return u < 0 ? Long.MAX_VALUE : u;
+    }
+
+    /**
+     * Adds the request to the requested count, unless it is {@link Long#MIN_VALUE} for unsubscribed
+     *
+     * @return false if unsubscribed
+     */
+    static boolean addRequest(AtomicLong requested, long n) {
+        for (; ; ) {
+            long r = requested.get();
+            if (r == Long.MIN_VALUE) {
+                return false;
+            }
+            if (requested.compareAndSet(r, addCap(r, n))) {
+                return true;
+            }
+        }
+    }
+
     @Override
     public void onNext(T v) {
         if (!closed) {
-            state.onNext(v);
+            PublishSubjectProducer<T>[] producers;
+            int[] emissions;
+            //the demand is counted under the lock, the subscribers are called outside of it
+            synchronized (requestLock) {
+                if (requestedFromSource != Long.MAX_VALUE && requestedFromSource > 0) {
+                    requestedFromSource--;
+                }
+                state.lastData = v;
+                producers = state.get();
+                emissions = new int[producers.length];
+                for (int i = 0; i < producers.length; i++) {
+                    emissions[i] = producers[i].reserve();
+                }
+            }
+            for (int i = 0; i < producers.length; i++) {
+                producers[i].emit(v, emissions[i]);
+            }
         }
     }
 
@@ -87,6 +129,53 @@ public class RemoteSubject<T> extends Subject<T, T> {
     public void onAllUnsubscribe() {
     }
 
+    /**
+     * Override to forward the demand of the subscribers to the source.
+     *
+     * @param n The number of more events the slowest subscriber can receive, or {@link Long#MAX_VALUE} if unbounded
+     */
+    public void onRequest(long n) {
+    }
+
+    /**
+     * Forgets the demand sent so far, once the source subscription is gone
+     */
+    void resetRequested() {
+        synchronized (requestLock) {
+            requestedFromSource = 0;
+        }
+    }
+
+    /**
+     * Requests from the source as many events as the slowest subscriber can receive
+     */
+    void requestFromSource() {
+        long request = 0;
+        synchronized (requestLock) {
+            PublishSubjectProducer<T>[] producers = state.get();
+            if (producers.length == 0 || requestedFromSource == Long.MAX_VALUE) {
+                return;
+            }
+            long demand = Long.MAX_VALUE;
+            for (PublishSubjectProducer<T> pp : producers) {
+                long r = pp.get();
+                if (r != Long.MAX_VALUE && r != Long.MIN_VALUE) {
+                    demand = Math.min(demand, r - pp.produced);
+                }
+            }
+            if (demand == Long.MAX_VALUE) {
+                request = Long.MAX_VALUE;
+                requestedFromSource = Long.MAX_VALUE;
+            } else if (demand > requestedFromSource) {
+                request = demand - requestedFromSource;
+                requestedFromSource = demand;
+            }
+        }
+        if (request > 0) {
+            onRequest(request);
+        }
+    }
+
 
     /**
      * Check if the Subject has terminated with an exception.
@@ -156,6 +245,8 @@ public class RemoteSubject<T> extends Subject<T, T> {
             if (add(pp)) {
                 if (pp.isUnsubscribed()) {
                     remove(pp);
+                } else {
+                    parent.requestFromSource();
                 }
             } else {
                 Throwable ex = error;
@@ -236,7 +327,10 @@ public class RemoteSubject<T> extends Subject<T, T> {
                 }
             }
             if (get().length == 0) {
+                parent.resetRequested();
                 parent.onAllUnsubscribe();
+            } else {
+                parent.requestFromSource();
             }
         }
 
@@ -296,17 +390,11 @@ public class RemoteSubject<T> extends Subject<T, T> {
 
         @Override
         public void request(long n) {
-            if (BackpressureUtils.validate(n)) {
-                for (; ; ) {
-                    long r = get();
-                    if (r == Long.MIN_VALUE) {
-                        return;
-                    }
-                    long u = BackpressureUtils.addCap(r, n);
-                    if (compareAndSet(r, u)) {
-                        return;
-                    }
-                }
+            if (n < 0) {
+                throw new IllegalArgumentException("n >= 0 required but it was " + n);
+            }
+            if (n > 0 && addRequest(this, n)) {
+                parent.parent.requestFromSource();
             }
         }
 
@@ -324,16 +412,38 @@ public class RemoteSubject<T> extends Subject<T, T> {
 
         @Override
         public void onNext(T t) {
+            emit(t, reserve());
+        }
+
+        static final int SKIP = 0;
+        static final int EMIT = 1;
+        static final int OVERFLOW = 2;
+
+        /**
+         * Counts the value as produced if it was requested, and returns how it is to be emitted
+         */
+        int reserve() {
             long r = get();
-            if (r != Long.MIN_VALUE) {
-                long p = produced;
-                if (r != p) {
-                    produced = p + 1;
-                    actual.onNext(t);
-                } else {
-                    unsubscribe();
-                    actual.onError(new MissingBackpressureException("PublishSubject: could not emit value due to lack of requests"));
-                }
+            if (r == Long.MIN_VALUE) {
+                return SKIP;
+            }
+            long p = produced;
+            if (r != p) {
+                produced = p + 1;
+                return EMIT;
+            }
+            return OVERFLOW;
+        }
+
+        /**
+         * Emits the value as per {@link #reserve()}
+         */
+        void emit(T t, int emission) {
+            if (emission == EMIT) {
+                actual.onNext(t);
+            } else if (emission == OVERFLOW) {
+                unsubscribe();
+                actual.onError(new MissingBackpressureException("PublishSubject: could not emit value due to lack of requests"));
             }
         }
 
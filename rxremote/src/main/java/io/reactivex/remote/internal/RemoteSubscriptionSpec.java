@@ -0,0 +1,157 @@
+package io.reactivex.remote.internal;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import java.util.Arrays;
+
+/**
+ * @hide
+ * How a client wants the events of its subscription delivered, sent along when it subscribes
+ */
+public final class RemoteSubscriptionSpec implements Parcelable {
+
+    public static final Creator<RemoteSubscriptionSpec> CREATOR = new Creator<RemoteSubscriptionSpec>() {
+        @Override
+        public RemoteSubscriptionSpec createFromParcel(Parcel in) {
+            return new RemoteSubscriptionSpec(in);
+        }
+
+        @Override
+        public RemoteSubscriptionSpec[] newArray(int size) {
+            return new RemoteSubscriptionSpec[size];
+        }
+    };
+
+    private static final int FLAG_CONFLATE = 1;
+    private static final int FLAG_SEQUENCED = 2;
+
+    /**
+     * Operators applied at the service side, before the events are sent
+     */
+    public static final int OP_SAMPLE = 1;
+    public static final int OP_THROTTLE_FIRST = 2;
+    public static final int OP_DISTINCT_UNTIL_CHANGED = 3;
+    public static final int OP_TAKE = 4;
+    public static final int OP_SKIP = 5;
+    public static final int OP_BUFFER = 6;
+
+    private int flags;
+    private int operatorCount;
+    private int[] operators = new int[0];
+    private long[] operatorArgs = new long[0];
+    private long resumeEpoch;
+    private long resumeSequence = -1;
+
+    public RemoteSubscriptionSpec() {
+    }
+
+    private RemoteSubscriptionSpec(Parcel in) {
+        flags = in.readInt();
+        //older clients send only the flags
+        if (in.dataAvail() > 0) {
+            operators = in.createIntArray();
+            operatorArgs = in.createLongArray();
+            operatorCount = Math.min(operators.length, operatorArgs.length);
+        }
+        if (in.dataAvail() > 0) {
+            resumeEpoch = in.readLong();
+            resumeSequence = in.readLong();
+        }
+    }
+
+    /**
+     * Returns whether the client only wants the latest event, sent once it has consumed the previous one
+     */
+    public boolean isConflate() {
+        return (flags & FLAG_CONFLATE) != 0;
+    }
+
+    public RemoteSubscriptionSpec setConflate(boolean conflate) {
+        flags = conflate ? flags | FLAG_CONFLATE : flags & ~FLAG_CONFLATE;
+        return this;
+    }
+
+    /**
+     * Returns whether the client keeps track of the sequence numbers of the events
+     */
+    public boolean isSequenced() {
+        return (flags & FLAG_SEQUENCED) != 0;
+    }
+
+    public RemoteSubscriptionSpec setSequenced(boolean sequenced) {
+        flags = sequenced ? flags | FLAG_SEQUENCED : flags & ~FLAG_SEQUENCED;
+        return this;
+    }
+
+    /**
+     * Asks for the events after the given one, as far as they are still kept by the service
+     *
+     * @param epoch    The numbering the sequence is from
+     * @param sequence The sequence number of the last event the client has received
+     */
+    public RemoteSubscriptionSpec setResumeFrom(long epoch, long sequence) {
+        this.resumeEpoch = epoch;
+        this.resumeSequence = sequence;
+        return setSequenced(true);
+    }
+
+    public long getResumeEpoch() {
+        return resumeEpoch;
+    }
+
+    /**
+     * Returns the sequence number of the last event the client has received, or -1 if it is not resuming
+     */
+    public long getResumeSequence() {
+        return resumeSequence;
+    }
+
+    /**
+     * Adds an operator to the ones applied before sending the events, in order
+     *
+     * @param operator One of the OP_ constants
+     * @param arg      The count or the time in milliseconds the operator takes, if any
+     */
+    public RemoteSubscriptionSpec addOperator(int operator, long arg) {
+        operators = Arrays.copyOf(operators, operatorCount + 1);
+        operatorArgs = Arrays.copyOf(operatorArgs, operatorCount + 1);
+        operators[operatorCount] = operator;
+        operatorArgs[operatorCount] = arg;
+        operatorCount++;
+        return this;
+    }
+
+    public int getOperatorCount() {
+        return operatorCount;
+    }
+
+    public int getOperator(int index) {
+        return operators[index];
+    }
+
+    public long getOperatorArg(int index) {
+        return operatorArgs[index];
+    }
+
+    /**
+     * Returns whether the events are delivered as is, as with a plain subscribe
+     */
+    public boolean isDefault() {
+        return flags == 0 && operatorCount == 0;
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeInt(this.flags);
+        dest.writeIntArray(operators);
+        dest.writeLongArray(operatorArgs);
+        dest.writeLong(resumeEpoch);
+        dest.writeLong(resumeSequence);
+    }
+}
@@ -8,6 +8,8 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.ServiceConnection;
 import android.os.IBinder;
+import android.os.Parcel;
+import android.os.SystemClock;
 import android.support.test.rule.ActivityTestRule;
 import android.util.Log;
 
@@ -20,13 +22,21 @@ import org.junit.Test;
 
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import io.reactivex.remote.RemoteEventController;
 import io.reactivex.remote.RemoteObservable;
+import io.reactivex.remote.RemoteObservableChannel;
 import io.reactivex.remote.RemoteObservableListener;
+import io.reactivex.remote.RemotePipeline;
+import io.reactivex.remote.RemoteTopicSnapshot;
 import rx.Observable;
+import rx.exceptions.MissingBackpressureException;
+import rx.Subscriber;
 import rx.Subscription;
 import rx.functions.Action0;
 import rx.functions.Action1;
@@ -39,6 +49,7 @@ import util.remoter.service.IEcho;
 import util.remoter.service.IGen;
 import util.remoter.service.ISampleService;
 import util.remoter.service.ISampleService_Proxy;
+import util.remoter.service.ISampleService_RemoteCodecs;
 
 
 /**
@@ -83,6 +94,7 @@ public class RemoteObservableTest {
 
     @Before
     public void setup() throws InterruptedException {
+        ISampleService_RemoteCodecs.register();
         synchronized (objectLock) {
             Log.i(TAG, "Connecting to service ");
             Intent remoterServiceIntent = new Intent(INTENT_AIDL_SERVICE);
@@ -630,6 +642,576 @@ public class RemoteObservableTest {
         Assert.assertEquals(1, eventsReceived);
     }
 
+    @Test
+    public void testCompactListOfParceler() throws Exception {
+        RemoteObservable<List<CustomData>> remoteObservable = sampleService.getCompactObservableOfListOfParceler();
+        Observable<List<CustomData>> observable = remoteObservable.getObservable();
+
+        expectingClose = false;
+        eventsReceived = 0;
+        observable.subscribe(data -> {
+            Assert.assertFalse(expectingClose);
+            eventsReceived++;
+            Log.v(TAG, "Compact List<CustomData> data " + data);
+            Assert.assertNotNull(data);
+            Assert.assertEquals(2, data.size());
+            for (int i = 1; i <= 2; i++) {
+                Assert.assertEquals(i, data.get(i - 1).getData());
+            }
+            expectingClose = true;
+        }, throwable -> Assert.fail("Unexpected observable exception"),
+                () -> Assert.assertTrue(expectingClose));
+        Thread.sleep(3000);
+        Assert.assertEquals(1, eventsReceived);
+    }
+
+    @Test
+    public void testBatchedIntObservable() throws Exception {
+        Observable<Integer> observable = sampleService.getBatchedIntObservable().getObservable();
+
+        expectingClose = false;
+        eventsReceived = 0;
+        observable.subscribe(data -> {
+            Assert.assertFalse(expectingClose);
+            eventsReceived++;
+            Log.v(TAG, "Batched int data " + data);
+            Assert.assertEquals(eventsReceived, data.intValue());
+            if (eventsReceived == 10) {
+                expectingClose = true;
+            }
+        }, throwable -> Assert.fail("Unexpected observable exception"),
+                () -> Assert.assertTrue(expectingClose));
+        Thread.sleep(3000);
+        Assert.assertEquals(10, eventsReceived);
+        Assert.assertTrue(expectingClose);
+    }
+
+    @Test
+    public void testSharedMemoryLongObservable() throws Exception {
+        Observable<Long> observable = sampleService.getSharedMemoryLongObservable().getObservable();
+
+        expectingClose = false;
+        eventsReceived = 0;
+        observable.subscribe(data -> {
+            Assert.assertFalse(expectingClose);
+            Assert.assertEquals(eventsReceived, data.longValue());
+            eventsReceived++;
+            if (eventsReceived == 1000) {
+                expectingClose = true;
+            }
+        }, throwable -> Assert.fail("Unexpected observable exception"),
+                () -> Assert.assertTrue(expectingClose));
+        Thread.sleep(3000);
+        Assert.assertEquals(1000, eventsReceived);
+        Assert.assertTrue(expectingClose);
+    }
+
+    @Test
+    public void testOffloadedListObservable() throws Exception {
+        Observable<List<String>> observable = sampleService.getOffloadedListObservable().getObservable();
+
+        expectingClose = false;
+        eventsReceived = 0;
+        observable.subscribe(data -> {
+            Assert.assertFalse(expectingClose);
+            eventsReceived++;
+            Assert.assertEquals(50000, data.size());
+            Assert.assertEquals("Item 49999", data.get(49999));
+            expectingClose = true;
+        }, throwable -> Assert.fail("Unexpected observable exception"),
+                () -> Assert.assertTrue(expectingClose));
+        Thread.sleep(3000);
+        Assert.assertEquals(1, eventsReceived);
+    }
+
+    @Test
+    public void testPackedIntObservable() throws Exception {
+        RemoteObservable<Integer> remoteObservable = sampleService.getPackedIntObservable();
+
+        expectingClose = false;
+        eventsReceived = 0;
+        remoteObservable.setIntListener(data -> {
+            Assert.assertEquals(eventsReceived, data);
+            eventsReceived++;
+        });
+        remoteObservable.getObservable().subscribe(data -> Assert.fail("Values expected only at the int listener"),
+                throwable -> Assert.fail("Unexpected observable exception"),
+                () -> expectingClose = true);
+        Thread.sleep(3000);
+        Assert.assertEquals(1000, eventsReceived);
+        Assert.assertTrue(expectingClose);
+    }
+
+    @Test
+    public void testFloatListObservable() throws Exception {
+        //packed as a float array in the compact format only, the Bundle format is left as is
+        for (boolean compact : new boolean[]{false, true}) {
+            final List<List<Float>> received = new ArrayList<>();
+            sampleService.getFloatListObservable(compact).getObservable().subscribe(received::add,
+                    throwable -> Assert.fail("Unexpected observable exception"));
+            Thread.sleep(1000);
+            Assert.assertEquals(1, received.size());
+            List<Float> data = received.get(0);
+            Assert.assertEquals(10000, data.size());
+            for (int i = 0; i < data.size(); i++) {
+                Assert.assertEquals(i / 2f, data.get(i), 0);
+            }
+        }
+    }
+
+    @Test
+    public void testIntArrayObservable() throws Exception {
+        //arrays are sent in the compact format either way
+        for (boolean compact : new boolean[]{false, true}) {
+            final List<int[]> received = new ArrayList<>();
+            sampleService.getIntArrayObservable(compact).getObservable().subscribe(received::add,
+                    throwable -> Assert.fail("Unexpected observable exception"));
+            Thread.sleep(1000);
+            Assert.assertEquals(1, received.size());
+            int[] data = received.get(0);
+            Assert.assertEquals(10000, data.length);
+            for (int i = 0; i < data.length; i++) {
+                Assert.assertEquals(i, data[i]);
+            }
+        }
+    }
+
+    @Test
+    public void testReplayObservable() throws Exception {
+        Observable<Integer> observable = sampleService.getReplayObservable().getObservable();
+
+        expectingClose = false;
+        eventsReceived = 0;
+        observable.subscribe(data -> {
+            Assert.assertEquals(50 + eventsReceived, data.intValue());
+            eventsReceived++;
+        }, throwable -> Assert.fail("Unexpected observable exception"),
+                () -> expectingClose = true);
+        Thread.sleep(2000);
+        Assert.assertEquals(50, eventsReceived);
+        Assert.assertTrue(expectingClose);
+    }
+
+    @Test
+    public void testObservableChannel() throws Exception {
+        RemoteObservableChannel channel = sampleService.getObservableChannel();
+
+        final List<Integer> numbers = new ArrayList<>();
+        final List<String> strings = new ArrayList<>();
+        final CountDownLatch latch = new CountDownLatch(3);
+        channel.<Integer>getObservable(1).subscribe(numbers::add,
+                throwable -> Assert.fail("Unexpected observable exception"), latch::countDown);
+        channel.<String>getObservable(2).subscribe(strings::add,
+                throwable -> Assert.fail("Unexpected observable exception"), latch::countDown);
+        channel.getObservable(3).subscribe(data -> Assert.fail("Unexpected data"),
+                throwable -> latch.countDown(), () -> Assert.fail("Unexpected completion"));
+        latch.await(2, TimeUnit.SECONDS);
+        Assert.assertEquals(0, latch.getCount());
+        Assert.assertEquals(100, numbers.size());
+        for (int i = 0; i < numbers.size(); i++) {
+            Assert.assertEquals(i, numbers.get(i).intValue());
+        }
+        Assert.assertEquals("abc", strings.get(0) + strings.get(1) + strings.get(2));
+        channel.close();
+    }
+
+    @Test
+    public void testTopicSnapshot() throws Exception {
+        RemoteTopicSnapshot snapshot = sampleService.getTopicSnapshot();
+        Assert.assertEquals(3, snapshot.size());
+        Assert.assertEquals(1, snapshot.<Integer>getData(0).intValue());
+        Assert.assertEquals("b", snapshot.getData(1));
+        Assert.assertFalse(snapshot.hasData(2));
+
+        final List<Integer> received = new ArrayList<>();
+        snapshot.<Integer>getObservable(0).subscribe(received::add,
+                throwable -> Assert.fail("Unexpected observable exception"));
+        Thread.sleep(500);
+        sampleService.sendTopicData(2);
+        sampleService.sendTopicData(3);
+        Thread.sleep(1000);
+        Assert.assertEquals(3, received.size());
+        Assert.assertEquals(1, received.get(0).intValue());
+        Assert.assertEquals(3, received.get(2).intValue());
+        snapshot.close();
+    }
+
+    @Test
+    public void testCloseOneOfSameController() throws Exception {
+        RemoteObservable<Integer> remoteObservable1 = sampleService.getSameControllerObservable(true);
+        RemoteObservable<Integer> remoteObservable2 = sampleService.getSameControllerObservable(false);
+        //a conflated observable has a subscription of its own
+        remoteObservable1.setConflation(true);
+
+        final List<Integer> received1 = new ArrayList<>();
+        final List<Integer> received2 = new ArrayList<>();
+        remoteObservable1.getObservable().subscribe(received1::add,
+                throwable -> Assert.fail("Unexpected observable exception"));
+        remoteObservable2.getObservable().subscribe(received2::add,
+                throwable -> Assert.fail("Unexpected observable exception"));
+        Thread.sleep(500);
+        sampleService.sendSameControllerData(1);
+        Thread.sleep(500);
+        Assert.assertEquals(1, received1.size());
+        Assert.assertEquals(1, received2.size());
+
+        remoteObservable1.close();
+        Thread.sleep(500);
+        sampleService.sendSameControllerData(2);
+        sampleService.sendSameControllerData(3);
+        Thread.sleep(500);
+        Assert.assertEquals(1, received1.size());
+        Assert.assertEquals(3, received2.size());
+        Assert.assertEquals(3, received2.get(2).intValue());
+        remoteObservable2.close();
+    }
+
+    @Test
+    public void testSharedSubscription() throws Exception {
+        //two instances of the same remote observable
+        RemoteObservable<Integer> remoteObservable1 = sampleService.getSharedObservable();
+        RemoteObservable<Integer> remoteObservable2 = sampleService.getSharedObservable();
+
+        final List<Integer> received1 = new ArrayList<>();
+        final List<Integer> received2 = new ArrayList<>();
+        remoteObservable1.getObservable().subscribe(received1::add,
+                throwable -> Assert.fail("Unexpected observable exception"));
+        remoteObservable2.getObservable().subscribe(received2::add,
+                throwable -> Assert.fail("Unexpected observable exception"));
+        Thread.sleep(500);
+        //a single subscription at the service
+        Assert.assertEquals(1, sampleService.getSharedClientCount());
+
+        sampleService.sendSharedData(1);
+        Thread.sleep(500);
+        Assert.assertEquals(1, received1.size());
+        Assert.assertEquals(1, received2.size());
+
+        //the subscription is kept for the other instance
+        remoteObservable1.close();
+        sampleService.sendSharedData(2);
+        Thread.sleep(500);
+        Assert.assertEquals(1, received1.size());
+        Assert.assertEquals(2, received2.size());
+        Assert.assertEquals(1, sampleService.getSharedClientCount());
+
+        //a new instance shares it too
+        RemoteObservable<Integer> remoteObservable3 = sampleService.getSharedObservable();
+        final List<Integer> received3 = new ArrayList<>();
+        expectingClose = false;
+        remoteObservable3.getObservable().subscribe(received3::add,
+                throwable -> Assert.fail("Unexpected observable exception"),
+                () -> expectingClose = true);
+        sampleService.sendSharedData(3);
+        Thread.sleep(500);
+        Assert.assertEquals(3, received2.size());
+        Assert.assertEquals(1, received3.size());
+        Assert.assertEquals(3, received3.get(0).intValue());
+        Assert.assertEquals(1, sampleService.getSharedClientCount());
+
+        //completion ends all the instances
+        sampleService.completeSharedObservable();
+        Thread.sleep(500);
+        Assert.assertTrue(expectingClose);
+        try {
+            remoteObservable2.getObservable();
+            Assert.fail("Expected the observable to be closed");
+        } catch (IllegalStateException ignored) {
+        }
+        Assert.assertEquals(0, sampleService.getSharedClientCount());
+
+        //and the next instance gets a subscription of its own
+        RemoteObservable<Integer> remoteObservable4 = sampleService.getSharedObservable();
+        final List<Integer> received4 = new ArrayList<>();
+        remoteObservable4.getObservable().subscribe(received4::add,
+                throwable -> Assert.fail("Unexpected observable exception"));
+        Thread.sleep(500);
+        sampleService.sendSharedData(4);
+        Thread.sleep(500);
+        Assert.assertEquals(1, received4.size());
+        Assert.assertEquals(3, received2.size());
+        remoteObservable4.close();
+    }
+
+    @Test
+    public void testResumeAfterServiceRestart() throws Exception {
+        RemoteObservable<Integer> remoteObservable = sampleService.getResumableObservable(true);
+        final AtomicInteger reconnects = new AtomicInteger();
+        remoteObservable.setReconnecter(() -> {
+            //the service connection is set again once the service has restarted
+            RemoteObservable<Integer> reconnected = sampleService.getResumableObservable(false);
+            reconnects.incrementAndGet();
+            return reconnected;
+        });
+
+        final List<Integer> received = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch completed = new CountDownLatch(1);
+        remoteObservable.getObservable().subscribe(received::add,
+                throwable -> Assert.fail("Unexpected observable exception"),
+                completed::countDown);
+        for (int i = 0; i < 100 && received.size() < 50; i++) {
+            Thread.sleep(100);
+        }
+        Assert.assertTrue(received.size() >= 50);
+
+        sampleService.killProcess();
+        Assert.assertTrue(completed.await(30, TimeUnit.SECONDS));
+        Assert.assertEquals(1, reconnects.get());
+
+        //every event once, in order, across the restart
+        Assert.assertEquals(200, received.size());
+        for (int i = 0; i < received.size(); i++) {
+            Assert.assertEquals(i, received.get(i).intValue());
+        }
+        remoteObservable.close();
+    }
+
+    @Test
+    public void testUnsubscribeDuringFlood() throws Exception {
+        RemoteObservable<Integer> remoteObservable = sampleService.getFloodObservable();
+        //gets every event that reaches this client, subscribed or not
+        final AtomicInteger delivered = new AtomicInteger();
+        remoteObservable.setDataListener(data -> delivered.incrementAndGet());
+
+        final AtomicInteger received = new AtomicInteger();
+        final AtomicInteger deliveredAtUnsubscribe = new AtomicInteger();
+        final CountDownLatch unsubscribed = new CountDownLatch(1);
+        remoteObservable.getObservable().subscribe(new Subscriber<Integer>() {
+            @Override
+            public void onNext(Integer data) {
+                if (received.incrementAndGet() == 1000) {
+                    unsubscribe();
+                    deliveredAtUnsubscribe.set(delivered.get());
+                    unsubscribed.countDown();
+                }
+            }
+
+            @Override
+            public void onCompleted() {
+            }
+
+            @Override
+            public void onError(Throwable e) {
+                Assert.fail("Unexpected observable exception");
+            }
+        });
+        Assert.assertTrue(unsubscribed.await(10, TimeUnit.SECONDS));
+        Thread.sleep(1000);
+
+        //the events already on their way are dropped, and the service stops sending
+        Assert.assertEquals(1000, received.get());
+        Assert.assertEquals(deliveredAtUnsubscribe.get(), delivered.get());
+        Assert.assertFalse(sampleService.isFloodRunning());
+        remoteObservable.close();
+    }
+
+    @Test
+    public void testConflatedObservable() throws Exception {
+        RemoteObservable<Long> remoteObservable = sampleService.getProgressObservable();
+        remoteObservable.setConflation(true);
+
+        expectingClose = false;
+        eventsReceived = 0;
+        final long[] lastProgress = {-1};
+        remoteObservable.getObservable().subscribe(data -> {
+            Assert.assertTrue(data > lastProgress[0]);
+            lastProgress[0] = data;
+            eventsReceived++;
+            SystemClock.sleep(20);
+        }, throwable -> Assert.fail("Unexpected observable exception"),
+                () -> expectingClose = true);
+        Thread.sleep(5000);
+        Assert.assertTrue(expectingClose);
+        Assert.assertEquals(499, lastProgress[0]);
+        Assert.assertTrue(eventsReceived < 500);
+    }
+
+    @Test
+    public void testPipelineObservable() throws Exception {
+        RemoteObservable<Long> remoteObservable = sampleService.getProgressObservable();
+        remoteObservable.setPipeline(new RemotePipeline().skip(10).take(5));
+
+        expectingClose = false;
+        eventsReceived = 0;
+        remoteObservable.getObservable().subscribe(data -> {
+            Assert.assertEquals(10 + eventsReceived, data.longValue());
+            eventsReceived++;
+        }, throwable -> Assert.fail("Unexpected observable exception"),
+                () -> expectingClose = true);
+        Thread.sleep(2000);
+        Assert.assertTrue(expectingClose);
+        Assert.assertEquals(5, eventsReceived);
+    }
+
+    @Test
+    public void testBufferedObservable() throws Exception {
+        RemoteObservable<List<Long>> remoteObservable = sampleService.getProgressObservable().getBufferedObservable(100);
+
+        expectingClose = false;
+        eventsReceived = 0;
+        remoteObservable.getObservable().subscribe(data -> {
+            Assert.assertEquals(100, data.size());
+            Assert.assertEquals(eventsReceived * 100, data.get(0).longValue());
+            eventsReceived++;
+        }, throwable -> Assert.fail("Unexpected observable exception"),
+                () -> expectingClose = true);
+        Thread.sleep(5000);
+        Assert.assertTrue(expectingClose);
+        Assert.assertEquals(5, eventsReceived);
+    }
+
+    @Test
+    public void testBackpressureBufferOverflow() throws Exception {
+        RemoteObservable<Integer> remoteObservable = sampleService.getBackpressureObservable(10);
+
+        final AtomicInteger received = new AtomicInteger();
+        final Throwable[] error = new Throwable[1];
+        final CountDownLatch terminated = new CountDownLatch(1);
+        remoteObservable.getObservable().subscribe(new Subscriber<Integer>() {
+            @Override
+            public void onStart() {
+                //never asks for more, so that the service has to hold the others
+                request(1);
+            }
+
+            @Override
+            public void onNext(Integer data) {
+                received.incrementAndGet();
+            }
+
+            @Override
+            public void onCompleted() {
+                terminated.countDown();
+            }
+
+            @Override
+            public void onError(Throwable e) {
+                error[0] = e;
+                terminated.countDown();
+            }
+        });
+        Assert.assertTrue(terminated.await(5, TimeUnit.SECONDS));
+        Assert.assertTrue(error[0] instanceof MissingBackpressureException);
+        //only the requested event is sent before the overflow
+        Assert.assertTrue(received.get() <= 1);
+        remoteObservable.close();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testLocalHandOff() throws Exception {
+        RemoteEventController<FooParcelable> controller = new RemoteEventController<>();
+        RemoteObservable<FooParcelable> serviceObservable = new RemoteObservable<>(controller);
+        final AtomicInteger closed = new AtomicInteger();
+        serviceObservable.setRemoteObservableListener(new RemoteObservableListener() {
+            @Override
+            public void onClosed() {
+                closed.incrementAndGet();
+            }
+        });
+
+        //sent within this process, as by a local service
+        Parcel parcel = Parcel.obtain();
+        serviceObservable.writeToParcel(parcel, 0);
+        parcel.setDataPosition(0);
+        RemoteObservable<FooParcelable> clientObservable = RemoteObservable.CREATOR.createFromParcel(parcel);
+        parcel.recycle();
+        //no effect on a local instance
+        clientObservable.setConflation(true);
+
+        final List<FooParcelable> received = Collections.synchronizedList(new ArrayList<>());
+        clientObservable.getObservable().subscribe(received::add,
+                throwable -> Assert.fail("Unexpected observable exception"));
+        FooParcelable[] sent = new FooParcelable[3];
+        for (int i = 0; i < sent.length; i++) {
+            sent[i] = new FooParcelable("Foo" + i, i);
+            controller.sendEvent(sent[i]);
+        }
+        Thread.sleep(200);
+
+        //every event, handed over as is without being parcelled
+        Assert.assertEquals(3, received.size());
+        for (int i = 0; i < sent.length; i++) {
+            Assert.assertSame(sent[i], received.get(i));
+        }
+
+        //closing closes the controller, as the only client
+        clientObservable.close();
+        controller.sendEvent(new FooParcelable("Foo3", 3));
+        Thread.sleep(200);
+        Assert.assertEquals(3, received.size());
+        Assert.assertEquals(1, closed.get());
+    }
+
+    @Test
+    public void testAsyncDispatch() throws Exception {
+        //in order, with room for all the events
+        List<Integer> received = receiveAsyncDispatch(100, 0, null);
+        Assert.assertEquals(100, received.size());
+        for (int i = 0; i < received.size(); i++) {
+            Assert.assertEquals(i, received.get(i).intValue());
+        }
+
+        //dropping the oldest events keeps the last ones
+        received = receiveAsyncDispatch(10, 0, null);
+        Assert.assertEquals(10, received.size());
+        for (int i = 0; i < received.size(); i++) {
+            Assert.assertEquals(90 + i, received.get(i).intValue());
+        }
+
+        //dropping the latest events keeps the first ones
+        received = receiveAsyncDispatch(10, 1, null);
+        Assert.assertEquals(10, received.size());
+        for (int i = 0; i < received.size(); i++) {
+            Assert.assertEquals(i, received.get(i).intValue());
+        }
+
+        //or the queued events are delivered, followed by the error
+        final Throwable[] error = new Throwable[1];
+        received = receiveAsyncDispatch(10, 2, error);
+        Assert.assertEquals(10, received.size());
+        Assert.assertTrue(error[0] instanceof MissingBackpressureException);
+    }
+
+    /**
+     * Sends 100 events through a dispatch queue of the given capacity, and returns the ones received
+     */
+    private List<Integer> receiveAsyncDispatch(int capacity, int overflow, final Throwable[] error) throws Exception {
+        RemoteObservable<Integer> remoteObservable = sampleService.getAsyncDispatchObservable(capacity, overflow);
+        final List<Integer> received = Collections.synchronizedList(new ArrayList<>());
+        remoteObservable.getObservable().subscribe(received::add, throwable -> {
+            if (error != null) {
+                error[0] = throwable;
+            } else {
+                Assert.fail("Unexpected observable exception");
+            }
+        });
+        Thread.sleep(500);
+        sampleService.sendAsyncDispatchData(100);
+        Thread.sleep(1000);
+        remoteObservable.close();
+        return received;
+    }
+
+    @Test
+    public void testChunkedListObservable() throws Exception {
+        Observable<List<String>> observable = sampleService.getChunkedListObservable().getObservable();
+
+        expectingClose = false;
+        eventsReceived = 0;
+        observable.subscribe(data -> {
+            Assert.assertFalse(expectingClose);
+            eventsReceived++;
+            Assert.assertEquals(20000, data.size());
+            Assert.assertEquals("Item 0", data.get(0));
+            Assert.assertEquals("Item 19999", data.get(19999));
+            expectingClose = true;
+        }, throwable -> Assert.fail("Unexpected observable exception"),
+                () -> Assert.assertTrue(expectingClose));
+        Thread.sleep(3000);
+        Assert.assertEquals(1, eventsReceived);
+    }
+
 
     @Test
     public void testClose() throws Exception {
@@ -7,6 +7,7 @@ import android.os.IBinder;
 import android.util.Log;
 
 import util.remoter.service.ISampleService;
+import util.remoter.service.ISampleService_RemoteCodecs;
 
 
 /**
@@ -15,7 +16,7 @@ import util.remoter.service.ISampleService;
 public class LocalSampleService extends Service {
 
     private static final String TAG = LocalSampleService.class.getSimpleName();
-    private ISampleService serviceImpl = new SampleServiceImpl();
+    private ISampleService serviceImpl = new SampleServiceImpl(this);
 
     public class LocalBinder extends Binder {
         public ISampleService getService() {
@@ -30,6 +31,7 @@ public class LocalSampleService extends Service {
     public void onCreate() {
         super.onCreate();
         Log.v(TAG, "Local Service Create");
+        ISampleService_RemoteCodecs.register();
     }
 
     @Override
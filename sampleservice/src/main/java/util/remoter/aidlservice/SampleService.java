@@ -6,6 +6,7 @@ import android.os.IBinder;
 import android.util.Log;
 
 import util.remoter.service.ISampleService;
+import util.remoter.service.ISampleService_RemoteCodecs;
 import util.remoter.service.ISampleService_Stub;
 
 
@@ -15,7 +16,7 @@ import util.remoter.service.ISampleService_Stub;
 public class SampleService extends Service {
 
     private static final String TAG = SampleService.class.getSimpleName();
-    private ISampleService serviceImpl = new SampleServiceImpl();
+    private ISampleService serviceImpl = new SampleServiceImpl(this);
 
     public SampleService() {
     }
@@ -24,6 +25,7 @@ public class SampleService extends Service {
     public void onCreate() {
         super.onCreate();
         Log.v(TAG, "Service Create");
+        ISampleService_RemoteCodecs.register();
     }
 
     @Override
@@ -1,15 +1,29 @@
 package util.remoter.aidlservice;
 
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
 import android.util.Log;
 
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
+import io.reactivex.remote.RemoteBackpressureStrategy;
 import io.reactivex.remote.RemoteEventController;
+import io.reactivex.remote.RemoteIntController;
 import io.reactivex.remote.RemoteObservable;
+import io.reactivex.remote.RemoteObservableChannel;
 import io.reactivex.remote.RemoteObservableListener;
 import io.reactivex.remote.RemoteObservables;
+import io.reactivex.remote.RemoteTopicSnapshot;
+import rx.BackpressureOverflow;
 import rx.Observable;
 import rx.functions.Action0;
 import rx.subjects.PublishSubject;
@@ -26,8 +40,19 @@ public class SampleServiceImpl implements ISampleService {
 
     private static final String TAG = "RemoteObservablesrc";
 
-    SampleServiceImpl() {
+    private RemoteEventController<Integer> sameController;
+    private RemoteObservable<Integer> sharedObservable;
+    private static final int RESUMABLE_COUNT = 200;
+    private final Context context;
+    private Thread resumableThread;
+    private volatile boolean resumableStopped;
+    private volatile boolean floodRunning;
+    private RemoteEventController<Integer> asyncDispatchController;
+    private final GatedExecutor asyncDispatchExecutor = new GatedExecutor();
+
+    SampleServiceImpl(Context context) {
         Log.v(TAG, "SampleServiceImpl Create");
+        this.context = context;
     }
 
     @Override
@@ -261,6 +286,349 @@ public class SampleServiceImpl implements ISampleService {
 
     }
 
+    @Override
+    public RemoteObservable<List<CustomData>> getCompactObservableOfListOfParceler() {
+        List<CustomData> data = new ArrayList<>();
+        data.add(new CustomData(1));
+        data.add(new ExtendedCustomData2(2));
+        RemoteEventController<List<CustomData>> controller = new RemoteEventController<List<CustomData>>();
+        controller.setCompactEncoding(true);
+        controller.sendEvent(data);
+        controller.sendCompleted();
+        return new RemoteObservable<>(controller);
+    }
+
+    @Override
+    public RemoteObservable<Integer> getBatchedIntObservable() {
+        RemoteEventController<Integer> controller = new RemoteEventController<>(Observable.range(1, 10));
+        controller.setBatching(4, 50);
+        return new RemoteObservable<>(controller);
+    }
+
+    @Override
+    public RemoteObservable<Long> getSharedMemoryLongObservable() {
+        RemoteEventController<Long> controller = new RemoteEventController<>(Observable.interval(1, TimeUnit.MILLISECONDS).take(1000));
+        controller.setSharedMemoryTransport(64 * 1024);
+        return new RemoteObservable<>(controller);
+    }
+
+    @Override
+    public RemoteObservable<List<String>> getOffloadedListObservable() {
+        List<String> data = new ArrayList<>();
+        for (int i = 0; i < 50000; i++) {
+            data.add("Item " + i);
+        }
+        RemoteEventController<List<String>> controller = new RemoteEventController<>();
+        controller.setLargePayloadOffload(256 * 1024);
+        controller.sendEvent(data);
+        controller.sendCompleted();
+        return new RemoteObservable<>(controller);
+    }
+
+    @Override
+    public RemoteObservable<List<String>> getChunkedListObservable() {
+        List<String> data = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            data.add("Item " + i);
+        }
+        RemoteEventController<List<String>> controller = new RemoteEventController<>();
+        controller.setListChunking(1000);
+        controller.sendEvent(data);
+        controller.sendCompleted();
+        return new RemoteObservable<>(controller);
+    }
+
+    @Override
+    public RemoteObservable<Integer> getPackedIntObservable() {
+        RemoteIntController controller = new RemoteIntController() {
+            @Override
+            public void onSubscribed() {
+                super.onSubscribed();
+                for (int i = 0; i < 1000; i++) {
+                    sendInt(i);
+                }
+                sendCompleted();
+            }
+        };
+        controller.setBatching(100, 20);
+        return new RemoteObservable<>(controller);
+    }
+
+    @Override
+    public RemoteObservable<List<Float>> getFloatListObservable(boolean compact) {
+        List<Float> data = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            data.add(i / 2f);
+        }
+        RemoteEventController<List<Float>> controller = new RemoteEventController<>();
+        controller.setCompactEncoding(compact);
+        controller.sendEvent(data);
+        controller.sendCompleted();
+        return new RemoteObservable<>(controller);
+    }
+
+    @Override
+    public RemoteObservable<int[]> getIntArrayObservable(boolean compact) {
+        int[] data = new int[10000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = i;
+        }
+        RemoteEventController<int[]> controller = new RemoteEventController<>();
+        controller.setCompactEncoding(compact);
+        controller.sendEvent(data);
+        controller.sendCompleted();
+        return new RemoteObservable<>(controller);
+    }
+
+    @Override
+    public RemoteObservable<Long> getProgressObservable() {
+        return new RemoteObservable<>(Observable.interval(1, TimeUnit.MILLISECONDS).take(500));
+    }
+
+    @Override
+    public RemoteObservable<Integer> getBackpressureObservable(int bufferSize) {
+        RemoteEventController<Integer> controller = new RemoteEventController<Integer>() {
+            @Override
+            public void onSubscribed() {
+                new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        SystemClock.sleep(100);
+                        for (int i = 0; i < 100; i++) {
+                            sendEvent(i);
+                        }
+                    }
+                }).start();
+            }
+        };
+        controller.setBackpressureStrategy(RemoteBackpressureStrategy.BUFFER, bufferSize);
+        return new RemoteObservable<>(controller);
+    }
+
+    @Override
+    public synchronized RemoteObservable<Integer> getAsyncDispatchObservable(int capacity, int overflow) {
+        BackpressureOverflow.Strategy strategy;
+        switch (overflow) {
+            case 0:
+                strategy = BackpressureOverflow.ON_OVERFLOW_DROP_OLDEST;
+                break;
+            case 1:
+                strategy = BackpressureOverflow.ON_OVERFLOW_DROP_LATEST;
+                break;
+            default:
+                strategy = BackpressureOverflow.ON_OVERFLOW_ERROR;
+                break;
+        }
+        asyncDispatchController = new RemoteEventController<>();
+        asyncDispatchController.setAsyncDispatch(capacity, strategy, asyncDispatchExecutor);
+        return new RemoteObservable<>(asyncDispatchController);
+    }
+
+    @Override
+    public synchronized void sendAsyncDispatchData(int count) {
+        //the events pile up in the dispatch queue until the dispatcher is let run
+        asyncDispatchExecutor.hold();
+        for (int i = 0; i < count; i++) {
+            asyncDispatchController.sendEvent(i);
+        }
+        asyncDispatchExecutor.release();
+    }
+
+    /**
+     * Runs the tasks on a single thread, holding them back while asked to
+     */
+    private static class GatedExecutor implements Executor {
+        private final Executor executor = Executors.newSingleThreadExecutor();
+        private final List<Runnable> held = new ArrayList<>();
+        private boolean holding;
+
+        synchronized void hold() {
+            holding = true;
+        }
+
+        void release() {
+            List<Runnable> tasks;
+            synchronized (this) {
+                holding = false;
+                tasks = new ArrayList<>(held);
+                held.clear();
+            }
+            for (Runnable task : tasks) {
+                executor.execute(task);
+            }
+        }
+
+        @Override
+        public synchronized void execute(Runnable task) {
+            if (holding) {
+                held.add(task);
+            } else {
+                executor.execute(task);
+            }
+        }
+    }
+
+    @Override
+    public RemoteObservable<Integer> getReplayObservable() {
+        RemoteEventController<Integer> controller = new RemoteEventController<>();
+        controller.setReplay(50, 0, 0);
+        for (int i = 0; i < 100; i++) {
+            controller.sendEvent(i);
+        }
+        controller.sendCompleted();
+        return new RemoteObservable<>(controller);
+    }
+
+    @Override
+    public RemoteObservableChannel getObservableChannel() {
+        return new RemoteObservableChannel()
+                .addStream(1, Observable.range(0, 100))
+                .addStream(2, Observable.just("a", "b", "c"));
+    }
+
+    @Override
+    public RemoteTopicSnapshot getTopicSnapshot() {
+        RemoteObservables.<Integer>of("TopicA").onNext(1);
+        RemoteObservables.<String>of("TopicB").onNext("b");
+        return RemoteObservables.snapshot(true, "TopicA", "TopicB", "TopicC");
+    }
+
+    @Override
+    public void sendTopicData(int data) {
+        RemoteObservables.<Integer>of("TopicA").onNext(data);
+    }
+
+    @Override
+    public synchronized RemoteObservable<Integer> getSameControllerObservable(boolean newController) {
+        if (newController || sameController == null) {
+            sameController = new RemoteEventController<>();
+        }
+        return new RemoteObservable<>(sameController);
+    }
+
+    @Override
+    public synchronized void sendSameControllerData(int data) {
+        sameController.sendEvent(data);
+    }
+
+    @Override
+    public synchronized RemoteObservable<Integer> getSharedObservable() {
+        //the same instance each time, so that the client gets the same binder
+        if (sharedObservable == null) {
+            sharedObservable = RemoteObservables.<Integer>of("SharedTopic").newObservable();
+        }
+        return sharedObservable;
+    }
+
+    @Override
+    public void sendSharedData(int data) {
+        RemoteObservables.<Integer>of("SharedTopic").onNext(data);
+    }
+
+    @Override
+    public synchronized void completeSharedObservable() {
+        RemoteObservables.<Integer>of("SharedTopic").onCompleted();
+        sharedObservable = null;
+    }
+
+    @Override
+    public int getSharedClientCount() {
+        return RemoteObservables.<Integer>of("SharedTopic").getClientLag().size();
+    }
+
+    @Override
+    public synchronized RemoteObservable<Integer> getResumableObservable(boolean restart) {
+        //where the stream is at is kept across the restarts of this process
+        final SharedPreferences preferences = context.getSharedPreferences("resumable", Context.MODE_PRIVATE);
+        if (restart) {
+            stopResumable();
+            preferences.edit().putInt("run", preferences.getInt("run", 0) + 1).putInt("next", 0).commit();
+        }
+        final RemoteObservables<Integer> observables = RemoteObservables.<Integer>of("Resumable" + preferences.getInt("run", 0))
+                .setReplay(RESUMABLE_COUNT, 0, 0);
+        if (resumableThread == null) {
+            resumableStopped = false;
+            resumableThread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    int next = preferences.getInt("next", 0);
+                    while (!resumableStopped && next < RESUMABLE_COUNT) {
+                        observables.onNext(next);
+                        next++;
+                        preferences.edit().putInt("next", next).commit();
+                        try {
+                            Thread.sleep(20);
+                        } catch (InterruptedException ignored) {
+                        }
+                    }
+                    if (next >= RESUMABLE_COUNT) {
+                        observables.onCompleted();
+                    }
+                }
+            });
+            resumableThread.start();
+        }
+        return observables.newObservable();
+    }
+
+    private void stopResumable() {
+        if (resumableThread != null) {
+            resumableStopped = true;
+            try {
+                resumableThread.join();
+            } catch (InterruptedException ignored) {
+            }
+            resumableThread = null;
+        }
+    }
+
+    @Override
+    public synchronized void killProcess() {
+        //stops where the stream is at, so that it goes on from there after the restart
+        stopResumable();
+        new Handler(Looper.getMainLooper()).postDelayed(new Runnable() {
+            @Override
+            public void run() {
+                Log.v(TAG, "Killing the service process");
+                Process.killProcess(Process.myPid());
+            }
+        }, 500);
+    }
+
+    @Override
+    public RemoteObservable<Integer> getFloodObservable() {
+        return new RemoteObservable<>(new RemoteEventController<Integer>() {
+            volatile boolean stopped = false;
+
+            @Override
+            public void onSubscribed() {
+                Log.v(TAG, "Flood onSubscribed");
+                floodRunning = true;
+                new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        //as fast as possible, until the client unsubscribes
+                        for (int i = 0; !stopped && i < 1000000; i++) {
+                            sendEvent(i);
+                        }
+                        floodRunning = false;
+                    }
+                }).start();
+            }
+
+            @Override
+            public void onUnSubscribed() {
+                Log.v(TAG, "Flood onUnSubscribed");
+                stopped = true;
+            }
+        });
+    }
+
+    @Override
+    public boolean isFloodRunning() {
+        return floodRunning;
+    }
+
     @Override
     public RemoteObservable<Integer> testForRemoteClose() {
         final PublishSubject<Integer> subject = PublishSubject.create();
@@ -3,6 +3,8 @@ package util.remoter.service;
 import java.util.List;
 
 import io.reactivex.remote.RemoteObservable;
+import io.reactivex.remote.RemoteObservableChannel;
+import io.reactivex.remote.RemoteTopicSnapshot;
 import remoter.annotations.Remoter;
 
 
@@ -30,6 +32,50 @@ public interface ISampleService {
 
     RemoteObservable<List<CustomData>> getRemoterObservableOfListOfParceler();
 
+    RemoteObservable<List<CustomData>> getCompactObservableOfListOfParceler();
+
+    RemoteObservable<Integer> getBatchedIntObservable();
+
+    RemoteObservable<Long> getSharedMemoryLongObservable();
+
+    RemoteObservable<List<String>> getOffloadedListObservable();
+
+    RemoteObservable<List<String>> getChunkedListObservable();
+
+    RemoteObservable<Integer> getPackedIntObservable();
+
+    RemoteObservable<List<Float>> getFloatListObservable(boolean compact);
+
+    RemoteObservable<int[]> getIntArrayObservable(boolean compact);
+
+    RemoteObservable<Long> getProgressObservable();
+
+    RemoteObservable<Integer> getBackpressureObservable(int bufferSize);
+
+    RemoteObservable<Integer> getAsyncDispatchObservable(int capacity, int overflow);
+    void sendAsyncDispatchData(int count);
+
+    RemoteObservable<Integer> getReplayObservable();
+
+    RemoteObservableChannel getObservableChannel();
+
+    RemoteTopicSnapshot getTopicSnapshot();
+    void sendTopicData(int data);
+
+    RemoteObservable<Integer> getSameControllerObservable(boolean newController);
+    void sendSameControllerData(int data);
+
+    RemoteObservable<Integer> getSharedObservable();
+    void sendSharedData(int data);
+    void completeSharedObservable();
+    int getSharedClientCount();
+
+    RemoteObservable<Integer> getResumableObservable(boolean restart);
+    void killProcess();
+
+    RemoteObservable<Integer> getFloodObservable();
+    boolean isFloodRunning();
+
 
     RemoteObservable<Integer> getIntObservableCreatedFromRxObservable();
 